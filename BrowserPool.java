@@ -0,0 +1,196 @@
+import com.microsoft.playwright.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of browser sessions shared by concurrent page tasks.
+ * Playwright objects are not thread-safe, so every slot owns its own
+ * Playwright connection, Browser and BrowserContext and is lent to exactly
+ * one thread at a time. Slots launch outside the pool's lock, so a slow or
+ * failing launch does not hold up threads returning or borrowing other slots.
+ */
+public class BrowserPool implements AutoCloseable {
+    
+    /**
+     * One Playwright connection with a single warm browser context
+     */
+    static class Slot {
+        final Playwright playwright;
+        final Browser browser;
+        final BrowserContext context;
+        
+        Slot(boolean headless) {
+            FetchLinksEvents.Launch launch = new FetchLinksEvents.Launch();
+            launch.begin();
+            this.playwright = Playwright.create();
+            try {
+                this.browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(headless));
+                this.context = browser.newContext();
+                launch.headless = headless;
+                launch.commit();
+            } catch (PlaywrightException e) {
+                playwright.close();
+                throw e;
+            }
+        }
+        
+        void close() {
+            try {
+                context.close();
+                browser.close();
+            } finally {
+                playwright.close();
+            }
+        }
+    }
+    
+    private final int size;
+    private final boolean headless;
+    private final BlockingQueue<Slot> idle;
+    private final List<Slot> created = new ArrayList<>();
+    // Slots being launched; they count against size before they exist
+    private int launching;
+    private boolean closed;
+    
+    public BrowserPool(int size, boolean headless) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.size = size;
+        this.headless = headless;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Launch every slot now instead of on first use, for long-lived pools
+     */
+    public void warmUp() {
+        while (true) {
+            Slot slot = launch();
+            if (slot == null) {
+                return;
+            }
+            idle.offer(slot);
+        }
+    }
+    
+    /**
+     * Borrow a slot, open a fresh page in its context and run the task on it.
+     * Slots are launched lazily so small crawls never start more browsers than they need.
+     */
+    public <T> T withPage(Function<Page, T> task) throws InterruptedException {
+        Slot slot = acquire();
+        Page page;
+        try {
+            page = slot.context.newPage();
+        } catch (PlaywrightException e) {
+            // The context cannot open pages any more; replace the slot instead of lending it out again
+            discard(slot);
+            throw e;
+        }
+        try {
+            return task.apply(page);
+        } finally {
+            try {
+                page.close();
+            } catch (PlaywrightException e) {
+                System.err.println("Error closing page: " + e.getMessage());
+            }
+            release(slot);
+        }
+    }
+    
+    private Slot acquire() throws InterruptedException {
+        while (true) {
+            Slot slot = idle.poll();
+            if (slot != null) {
+                return slot;
+            }
+            slot = launch();
+            if (slot != null) {
+                return slot;
+            }
+            // Re-check capacity periodically in case a crashed slot was dropped
+            slot = idle.poll(100, TimeUnit.MILLISECONDS);
+            if (slot != null) {
+                return slot;
+            }
+        }
+    }
+    
+    /**
+     * Launch a new slot if the pool has room, or return null when it is full
+     */
+    private Slot launch() {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Browser pool is closed");
+            }
+            if (created.size() + launching >= size) {
+                return null;
+            }
+            launching++;
+        }
+        Slot slot;
+        try {
+            slot = new Slot(headless);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                launching--;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            launching--;
+            if (!closed) {
+                created.add(slot);
+                return slot;
+            }
+        }
+        // Closed while launching
+        slot.close();
+        throw new IllegalStateException("Browser pool is closed");
+    }
+    
+    private void release(Slot slot) {
+        if (!slot.browser.isConnected()) {
+            // The browser crashed; drop the slot so the next borrower launches a new one
+            discard(slot);
+            return;
+        }
+        idle.offer(slot);
+    }
+    
+    private void discard(Slot slot) {
+        synchronized (this) {
+            created.remove(slot);
+        }
+        try {
+            slot.close();
+        } catch (PlaywrightException e) {
+            System.err.println("Error closing broken browser: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Slot slot : created) {
+            try {
+                slot.close();
+            } catch (PlaywrightException e) {
+                System.err.println("Error closing browser: " + e.getMessage());
+            }
+        }
+        created.clear();
+        idle.clear();
+    }
+}
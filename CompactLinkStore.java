@@ -0,0 +1,307 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Memory-compact, read-only collection of extracted links.
+ * Text and target values live in a shared string table, hrefs are sorted
+ * and front-coded in blocks, and XPaths are stored as a trie of
+ * (parent index, step) nodes, so each link costs four ints plus its share
+ * of the deduplicated data. A List<LinkInfo> view decodes links on demand.
+ *
+ * Build with a Builder, which deduplicates as links arrive, then call build().
+ * Null fields are kept as null. LinkCrawler.crawl(String) uses one store for
+ * the links of every page it returns.
+ */
+public class CompactLinkStore {
+    
+    private static final int HREF_BLOCK = 16;
+    // Column value of a null field
+    private static final int NULL = -1;
+    
+    private final StringTable strings;
+    private final FrontCodedStrings hrefs;
+    private final int[] xpathParent;
+    private final int[] xpathStep;
+    
+    // Per link: text and target index into strings, href rank, xpath trie node
+    private final int[] linkText;
+    private final int[] linkHref;
+    private final int[] linkTarget;
+    private final int[] linkXpath;
+    
+    private CompactLinkStore(Builder builder) {
+        this.strings = new StringTable(builder.strings);
+        
+        // Sort the distinct hrefs, then renumber links by sorted rank
+        int hrefCount = builder.hrefs.size();
+        String[] sorted = builder.hrefs.keySet().toArray(new String[0]);
+        Arrays.sort(sorted);
+        int[] rankOfId = new int[hrefCount];
+        for (int rank = 0; rank < hrefCount; rank++) {
+            rankOfId[builder.hrefs.get(sorted[rank])] = rank;
+        }
+        this.hrefs = new FrontCodedStrings(sorted, HREF_BLOCK);
+        
+        int size = builder.size;
+        this.linkText = Arrays.copyOf(builder.linkText, size);
+        this.linkTarget = Arrays.copyOf(builder.linkTarget, size);
+        this.linkXpath = Arrays.copyOf(builder.linkXpath, size);
+        this.linkHref = new int[size];
+        for (int i = 0; i < size; i++) {
+            int id = builder.linkHref[i];
+            linkHref[i] = id == NULL ? NULL : rankOfId[id];
+        }
+        this.xpathParent = Arrays.copyOf(builder.xpathParent, builder.xpathNodes);
+        this.xpathStep = Arrays.copyOf(builder.xpathStep, builder.xpathNodes);
+    }
+    
+    public int size() {
+        return linkText.length;
+    }
+    
+    public FetchLinks.LinkInfo get(int index) {
+        Objects.checkIndex(index, size());
+        return new FetchLinks.LinkInfo(
+            string(linkText[index]),
+            linkHref[index] == NULL ? null : hrefs.get(linkHref[index]),
+            string(linkTarget[index]),
+            linkXpath[index] == NULL ? null : xpath(linkXpath[index]));
+    }
+    
+    private String string(int id) {
+        return id == NULL ? null : strings.get(id);
+    }
+    
+    /**
+     * Read-only list view; each element is decoded when it is read
+     */
+    public List<FetchLinks.LinkInfo> asList() {
+        return new AbstractList<FetchLinks.LinkInfo>() {
+            @Override
+            public FetchLinks.LinkInfo get(int index) {
+                return CompactLinkStore.this.get(index);
+            }
+            
+            @Override
+            public int size() {
+                return CompactLinkStore.this.size();
+            }
+        };
+    }
+    
+    public int distinctHrefs() {
+        return hrefs.size();
+    }
+    
+    private String xpath(int node) {
+        Deque<String> steps = new ArrayDeque<>();
+        for (int current = node; current >= 0; current = xpathParent[current]) {
+            steps.push(strings.get(xpathStep[current]));
+        }
+        StringBuilder xpath = new StringBuilder(steps.pop());
+        for (String step : steps) {
+            xpath.append('/').append(step);
+        }
+        return xpath.toString();
+    }
+    
+    public static class Builder {
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> hrefs = new HashMap<>();
+        private final Map<Long, Integer> xpathNodesByKey = new HashMap<>();
+        private int[] xpathParent = new int[1024];
+        private int[] xpathStep = new int[1024];
+        private int xpathNodes;
+        
+        private int[] linkText = new int[1024];
+        private int[] linkHref = new int[1024];
+        private int[] linkTarget = new int[1024];
+        private int[] linkXpath = new int[1024];
+        private int size;
+        
+        public Builder add(FetchLinks.LinkInfo link) {
+            if (size == linkText.length) {
+                int capacity = size * 2;
+                linkText = Arrays.copyOf(linkText, capacity);
+                linkHref = Arrays.copyOf(linkHref, capacity);
+                linkTarget = Arrays.copyOf(linkTarget, capacity);
+                linkXpath = Arrays.copyOf(linkXpath, capacity);
+            }
+            linkText[size] = link.text == null ? NULL : intern(link.text);
+            linkHref[size] = link.href == null ? NULL : hrefs.computeIfAbsent(link.href, href -> hrefs.size());
+            linkTarget[size] = link.target == null ? NULL : intern(link.target);
+            linkXpath[size] = link.xpath == null ? NULL : xpathNode(link.xpath);
+            size++;
+            return this;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public Builder addAll(Collection<FetchLinks.LinkInfo> links) {
+            for (FetchLinks.LinkInfo link : links) {
+                add(link);
+            }
+            return this;
+        }
+        
+        public CompactLinkStore build() {
+            return new CompactLinkStore(this);
+        }
+        
+        private int intern(String value) {
+            return stringIds.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+        
+        /**
+         * Split an XPath into its root (id shortcut or absolute prefix) and
+         * positional steps, reusing existing trie nodes for shared prefixes
+         */
+        private int xpathNode(String xpath) {
+            int rootEnd = rootLength(xpath);
+            int node = child(-1, xpath.substring(0, rootEnd));
+            int start = rootEnd + 1;
+            while (start <= xpath.length() && rootEnd < xpath.length()) {
+                int end = xpath.indexOf('/', start);
+                if (end < 0) {
+                    end = xpath.length();
+                }
+                node = child(node, xpath.substring(start, end));
+                start = end + 1;
+            }
+            return node;
+        }
+        
+        private static int rootLength(String xpath) {
+            if (xpath.startsWith("//*[@id=")) {
+                int close = xpath.indexOf("\"]");
+                return close < 0 ? xpath.length() : close + 2;
+            }
+            if (xpath.startsWith("/html/body")) {
+                return "/html/body".length();
+            }
+            if (xpath.startsWith("/html")) {
+                return "/html".length();
+            }
+            // Unknown shape: keep it whole
+            return xpath.length();
+        }
+        
+        private int child(int parent, String step) {
+            int stepId = intern(step);
+            long key = ((long) parent << 32) | (stepId & 0xffffffffL);
+            return xpathNodesByKey.computeIfAbsent(key, k -> {
+                if (xpathNodes == xpathParent.length) {
+                    xpathParent = Arrays.copyOf(xpathParent, xpathNodes * 2);
+                    xpathStep = Arrays.copyOf(xpathStep, xpathNodes * 2);
+                }
+                xpathParent[xpathNodes] = parent;
+                xpathStep[xpathNodes] = stepId;
+                return xpathNodes++;
+            });
+        }
+    }
+    
+    /**
+     * Distinct strings packed as UTF-8 in one byte array
+     */
+    static class StringTable {
+        private final byte[] data;
+        private final int[] offsets;
+        
+        StringTable(List<String> values) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            offsets = new int[values.size() + 1];
+            for (int i = 0; i < values.size(); i++) {
+                offsets[i] = out.size();
+                out.writeBytes(values.get(i).getBytes(StandardCharsets.UTF_8));
+            }
+            offsets[values.size()] = out.size();
+            data = out.toByteArray();
+        }
+        
+        String get(int index) {
+            return new String(data, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Sorted strings front-coded in fixed-size blocks: the first entry of a block is
+     * stored whole, each following entry as (shared prefix length, suffix)
+     */
+    static class FrontCodedStrings {
+        private final byte[] data;
+        private final int[] blockOffsets;
+        private final int blockSize;
+        private final int size;
+        
+        FrontCodedStrings(String[] sorted, int blockSize) {
+            this.blockSize = blockSize;
+            this.size = sorted.length;
+            this.blockOffsets = new int[(size + blockSize - 1) / blockSize];
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] previous = new byte[0];
+            for (int i = 0; i < size; i++) {
+                byte[] current = sorted[i].getBytes(StandardCharsets.UTF_8);
+                int shared = 0;
+                if (i % blockSize == 0) {
+                    blockOffsets[i / blockSize] = out.size();
+                } else {
+                    int max = Math.min(previous.length, current.length);
+                    while (shared < max && previous[shared] == current[shared]) {
+                        shared++;
+                    }
+                    writeVarInt(out, shared);
+                }
+                writeVarInt(out, current.length - shared);
+                out.write(current, shared, current.length - shared);
+                previous = current;
+            }
+            this.data = out.toByteArray();
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        String get(int index) {
+            int[] position = { blockOffsets[index / blockSize] };
+            byte[] value = new byte[0];
+            for (int i = 0; i <= index % blockSize; i++) {
+                int shared = i == 0 ? 0 : readVarInt(position);
+                int suffix = readVarInt(position);
+                byte[] next = Arrays.copyOf(value, shared + suffix);
+                System.arraycopy(data, position[0], next, shared, suffix);
+                position[0] += suffix;
+                value = next;
+            }
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        
+        private static void writeVarInt(ByteArrayOutputStream out, int value) {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+        
+        private int readVarInt(int[] position) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position[0]++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
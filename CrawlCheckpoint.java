@@ -0,0 +1,293 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write-ahead log of completed pages so a crawl killed partway can resume.
+ * Every page extracted without error is appended to wal.log as a length- and
+ * CRC32C-framed record holding its URL, depth and links; a torn record left by a
+ * kill is detected and cut off on the next start. Every compactEvery pages the
+ * log is sealed into the next numbered gzip segment and a new log is started, so
+ * each compaction only rewrites the pages appended since the previous one.
+ *
+ * The crawler appends each URL at most once, so every page appears in exactly one
+ * segment or the log; replay does not deduplicate.
+ */
+public class CrawlCheckpoint implements Closeable {
+    
+    private static final String WAL = "wal.log";
+    // segment-000001.bin.gz; while being sealed the log is first renamed to segment-000001.log
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6,})\\.(bin\\.gz|log)");
+    static final int MAX_RECORD_BYTES = 64 << 20;
+    
+    private final Path directory;
+    private final Path walFile;
+    private final int compactEvery;
+    private FileChannel wal;
+    private int appendedSinceCompaction;
+    private int nextSegment;
+    
+    public CrawlCheckpoint(Path directory, int compactEvery) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.walFile = directory.resolve(WAL);
+        this.compactEvery = compactEvery;
+        
+        // Finish sealing a log renamed just before a kill
+        for (Path log : segments(".log")) {
+            seal(log);
+        }
+        this.wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        // Drop a record torn by a kill mid-write so new records follow the last good one
+        long valid = scan(walFile, false, null);
+        if (valid < wal.size()) {
+            System.err.println("[checkpoint] Discarding " + (wal.size() - valid) + " bytes of incomplete record in " + walFile);
+            wal.truncate(valid);
+        }
+        wal.position(valid);
+    }
+    
+    /**
+     * Hand every completed page from previous runs to the consumer, oldest first; returns how many
+     */
+    public int replay(Consumer<LinkCrawler.PageResult> consumer) throws IOException {
+        int[] pages = new int[1];
+        Consumer<LinkCrawler.PageResult> counting = page -> {
+            pages[0]++;
+            consumer.accept(page);
+        };
+        for (Path segment : segments(".bin.gz")) {
+            scan(segment, true, counting);
+        }
+        scan(walFile, false, counting);
+        return pages[0];
+    }
+    
+    /**
+     * Append a completed page; it survives a JVM kill once this returns, and an OS crash after sync().
+     * A page too large for one record is not checkpointed and returns false, so a resumed crawl fetches it again.
+     */
+    public synchronized boolean append(LinkCrawler.PageResult page) throws IOException {
+        byte[] bytes = encode(page);
+        if (bytes.length - 8 > MAX_RECORD_BYTES) {
+            System.err.println("[checkpoint] Not checkpointing " + page.url + ": record of " + (bytes.length - 8)
+                + " bytes exceeds " + MAX_RECORD_BYTES);
+            return false;
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        while (record.hasRemaining()) {
+            wal.write(record);
+        }
+        appendedSinceCompaction++;
+        return true;
+    }
+    
+    /**
+     * Force the log to disk, sealing it into a segment when enough pages have accumulated
+     */
+    public synchronized void sync() throws IOException {
+        wal.force(false);
+        if (appendedSinceCompaction >= compactEvery) {
+            compact();
+        }
+    }
+    
+    /**
+     * Seal the log as the next segment and start an empty one. The log is renamed
+     * before it is compressed, so a kill at any point leaves each record in exactly
+     * one file: either the renamed log, which the next start seals, or the segment.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        wal.force(true);
+        wal.close();
+        int number = nextSegment++;
+        Path sealing = directory.resolve(String.format("segment-%06d.log", number));
+        Files.move(walFile, sealing, StandardCopyOption.ATOMIC_MOVE);
+        wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long bytes = seal(sealing);
+        System.out.println("[checkpoint] Sealed " + appendedSinceCompaction + " pages (" + bytes + " bytes) into segment "
+            + number + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        appendedSinceCompaction = 0;
+    }
+    
+    // Compress a renamed log into its segment, then delete it; returns the log's valid length
+    private long seal(Path log) throws IOException {
+        Path segment = log.resolveSibling(log.getFileName().toString().replace(".log", ".bin.gz"));
+        long valid = scan(log, false, null);
+        if (!Files.exists(segment)) {
+            Path part = segment.resolveSibling(segment.getFileName() + ".part");
+            try (FileChannel in = FileChannel.open(log, StandardOpenOption.READ);
+                 FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                GZIPOutputStream out = new GZIPOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), 1 << 16);
+                copy(Channels.newInputStream(in), out, valid);
+                out.finish();
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(part, segment, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.delete(log);
+        return valid;
+    }
+    
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        while (length > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if (read < 0) {
+                throw new EOFException("Log shorter than its scanned length");
+            }
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+    
+    // Segment files with the given suffix in number order; also sets the next segment number
+    private List<Path> segments(String suffix) throws IOException {
+        TreeMap<Integer, Path> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    int number = Integer.parseInt(matcher.group(1));
+                    nextSegment = Math.max(nextSegment, number + 1);
+                    if (file.getFileName().toString().endsWith(suffix)) {
+                        found.put(number, file);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+    
+    /**
+     * A record: payload length, CRC32C of the payload, then url, depth, via and the links
+     */
+    private static byte[] encode(LinkCrawler.PageResult page) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        writeString(out, page.url);
+        out.writeInt(page.depth);
+        writeString(out, page.via);
+        out.writeInt(page.links.size());
+        for (FetchLinks.LinkInfo link : page.links) {
+            writeString(out, link.text);
+            writeString(out, link.href);
+            writeString(out, link.target);
+            writeString(out, link.xpath);
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32C check = new CRC32C();
+        check.update(record.array(), 8, record.capacity() - 8);
+        record.putInt(0, record.capacity() - 8);
+        record.putInt(4, (int) check.getValue());
+        return record.array();
+    }
+    
+    /**
+     * Read framed records until the end or the first damaged one; returns the byte length of the valid prefix
+     */
+    private static long scan(Path file, boolean gzip, Consumer<LinkCrawler.PageResult> consumer) throws IOException {
+        long valid = 0;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             DataInputStream in = new DataInputStream(gzip ? new GZIPInputStream(raw, 1 << 16) : raw)) {
+            CRC32C check = new CRC32C();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                int expected = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                if (consumer != null) {
+                    consumer.accept(decode(payload));
+                }
+                valid += 8 + length;
+            }
+        } catch (EOFException e) {
+            // Torn final record
+        }
+        return valid;
+    }
+    
+    private static LinkCrawler.PageResult decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String url = readString(in);
+        int depth = in.readInt();
+        String via = readString(in);
+        int count = in.readInt();
+        List<FetchLinks.LinkInfo> links = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            links.add(new FetchLinks.LinkInfo(readString(in), readString(in), readString(in), readString(in)));
+        }
+        return new LinkCrawler.PageResult(url, depth, links, null, via);
+    }
+    
+    // Length-prefixed UTF-8; writeUTF would cap strings at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        wal.force(false);
+        wal.close();
+    }
+}
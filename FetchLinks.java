@@ -1,13 +1,66 @@
 import com.microsoft.playwright.*;
 import com.microsoft.playwright.options.*;
 import java.util.*;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import java.io.FileWriter;
+import java.util.function.Consumer;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
 
 public class FetchLinks {
     
+    static final String START_URL = "https://investors.globelifeinsurance.com/";
+    
+    static final String MENU_TOGGLE_SELECTOR = ".navbar-toggler";
+    
+    // Collects every anchor on the page together with a positional XPath and
+    // returns them as one compact JSON string decoded by LinkPayload.
+    // XPaths are assigned in one walk over the element tree: each child reuses its
+    // parent's memoized path and a running per-tag sibling count, so the cost is
+    // linear in the number of elements instead of depth times siblings per anchor.
+    static final String EXTRACT_LINKS_SCRIPT = "() => {" +
+        "const paths = new Map();" +
+        "const root = document.documentElement;" +
+        "paths.set(root, '/html');" +
+        "const stack = [root];" +
+        "while (stack.length) {" +
+        "  const parent = stack.pop();" +
+        "  const prefix = paths.get(parent);" +
+        "  const counts = new Map();" +
+        "  for (let child = parent.firstElementChild; child; child = child.nextElementSibling) {" +
+        "    const ix = (counts.get(child.tagName) || 0) + 1;" +
+        "    counts.set(child.tagName, ix);" +
+        "    let path;" +
+        "    if (child.id) path = '//*[@id=\"' + child.id + '\"]';" +
+        "    else if (child === document.body) path = '/html/body';" +
+        "    else path = prefix + '/' + child.tagName.toLowerCase() + '[' + ix + ']';" +
+        "    paths.set(child, path);" +
+        "    if (child.firstElementChild) stack.push(child);" +
+        "  }" +
+        "}" +
+        "const strings = [];" +
+        "const index = new Map();" +
+        "function intern(value) {" +
+        "  let i = index.get(value);" +
+        "  if (i === undefined) {" +
+        "    i = strings.length;" +
+        "    strings.push(value);" +
+        "    index.set(value, i);" +
+        "  }" +
+        "  return i;" +
+        "}" +
+        "const links = [];" +
+        "for (const anchor of document.querySelectorAll('a')) {" +
+        "  const href = typeof anchor.href === 'string' ? anchor.href : anchor.href.baseVal;" +
+        "  if (!href) continue;" +
+        "  links.push(intern((anchor.innerText || '').trim()), intern(href)," +
+        "    intern(anchor.target || '_self'), intern(paths.get(anchor)));" +
+        "}" +
+        "return JSON.stringify({strings: strings, links: links});" +
+    "}";
+    
     public static class LinkInfo {
         public String text;
         public String href;
@@ -23,72 +76,420 @@ public class FetchLinks {
     }
     
     public static void main(String[] args) {
+        String url = START_URL;
+        String output = null;
+        boolean pretty = false;
+        LinkShardWriter.Options shards = null;
+        boolean validate = false;
+        Path graphDirectory = null;
+        PageReadiness.Config readiness = new PageReadiness.Config();
+        Path daemonSocket = null;
+        Path viaDaemon = null;
+        Path stopDaemon = null;
+        int daemonBrowsers = 2;
+        ResourcePolicy resources = null;
+        LinkCrawler.CrawlOptions crawlOptions = null;
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--crawl":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.maxDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--contexts":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.contexts = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-pages":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.maxPages = Integer.parseInt(args[++i]);
+                    break;
+                case "--stats-interval":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.statsIntervalMs = Long.parseLong(args[++i]);
+                    break;
+                case "--expected-urls":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.frontier.expectedUrls = Long.parseLong(args[++i]);
+                    break;
+                case "--fpp":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.frontier.falsePositiveRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--incremental":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.incrementalDirectory = Path.of(args[++i]);
+                    break;
+                case "--host-rps":
+                    crawlOptions = politeCrawlOptions(crawlOptions);
+                    crawlOptions.politeness.requestsPerSecond = Double.parseDouble(args[++i]);
+                    break;
+                case "--host-max-in-flight":
+                    crawlOptions = politeCrawlOptions(crawlOptions);
+                    crawlOptions.politeness.maxInFlight = Integer.parseInt(args[++i]);
+                    break;
+                case "--checkpoint":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.checkpointDirectory = Path.of(args[++i]);
+                    break;
+                case "--sitemap":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.sitemaps.add(args[++i]);
+                    break;
+                case "--graph":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    graphDirectory = Path.of(args[++i]);
+                    break;
+                case "--browser-only":
+                    crawlOptions = crawlOptions != null ? crawlOptions : new LinkCrawler.CrawlOptions();
+                    crawlOptions.staticFirst = false;
+                    break;
+                case "--out":
+                    output = args[++i];
+                    break;
+                case "--pretty":
+                    pretty = true;
+                    break;
+                case "--shards":
+                    shards = shards != null ? shards : new LinkShardWriter.Options();
+                    break;
+                case "--compression":
+                    shards = shards != null ? shards : new LinkShardWriter.Options();
+                    shards.compression = LinkShardWriter.Compression.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--shard-max-records":
+                    shards = shards != null ? shards : new LinkShardWriter.Options();
+                    shards.maxRecords = Long.parseLong(args[++i]);
+                    break;
+                case "--ready":
+                    readiness = PageReadiness.Config.parse(args[++i]);
+                    break;
+                case "--daemon":
+                    daemonSocket = Path.of(args[++i]);
+                    break;
+                case "--daemon-browsers":
+                    daemonBrowsers = Integer.parseInt(args[++i]);
+                    break;
+                case "--via-daemon":
+                    viaDaemon = Path.of(args[++i]);
+                    break;
+                case "--daemon-stop":
+                    stopDaemon = Path.of(args[++i]);
+                    break;
+                case "--block":
+                    // The default policy: media, fonts and analytics beacons
+                    ResourcePolicy defaults = new ResourcePolicy();
+                    resources = resources != null ? resources : ResourcePolicy.allowAll();
+                    resources.blockedTypes.addAll(defaults.blockedTypes);
+                    resources.blockedUrls.addAll(defaults.blockedUrls);
+                    break;
+                case "--no-block":
+                    resources = null;
+                    break;
+                case "--block-types":
+                    resources = resources != null ? resources : ResourcePolicy.allowAll();
+                    resources.blockedTypes = new HashSet<>(Arrays.asList(args[++i].split(",")));
+                    break;
+                case "--block-url":
+                    resources = resources != null ? resources : ResourcePolicy.allowAll();
+                    resources.blockedUrls.add(Pattern.compile(args[++i]));
+                    break;
+                case "--allow-url":
+                    resources = resources != null ? resources : ResourcePolicy.allowAll();
+                    resources.allowedUrls.add(Pattern.compile(args[++i]));
+                    break;
+                case "--validate":
+                    validate = true;
+                    break;
+                default:
+                    url = args[i];
+            }
+        }
+        if (output == null) {
+            // With --shards the output is a directory of JSON Lines shards
+            output = shards != null ? "links" : "links.json";
+        }
+        
+        if (daemonSocket != null) {
+            try {
+                new LinkDaemon(daemonSocket, daemonBrowsers, readiness, resources).serve();
+            } catch (IOException e) {
+                System.err.println("Daemon failed: " + e.getMessage());
+            }
+            return;
+        }
+        
+        if (stopDaemon != null) {
+            try {
+                LinkDaemon.shutdown(stopDaemon);
+                System.out.println("Daemon on " + stopDaemon + " stopped");
+            } catch (IOException e) {
+                System.err.println("Error talking to daemon: " + e.getMessage());
+            }
+            return;
+        }
+        
+        if (viaDaemon != null) {
+            try {
+                long start = System.nanoTime();
+                List<LinkInfo> links = LinkDaemon.request(viaDaemon, url);
+                System.out.println("Found " + links.size() + " links via daemon in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+                saveLinksToJson(links, output, pretty, shards);
+                System.out.println("Links saved to " + output);
+            } catch (IOException e) {
+                System.err.println("Error talking to daemon: " + e.getMessage());
+            }
+            return;
+        }
+        
+        if (crawlOptions != null) {
+            crawlOptions.readiness = readiness;
+            crawlOptions.resources = resources;
+            crawl(url, crawlOptions, output, pretty, shards, validate, graphDirectory);
+            return;
+        }
+        
+        FetchLinksEvents.Launch launch = new FetchLinksEvents.Launch();
+        launch.begin();
         try (Playwright playwright = Playwright.create()) {
             Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
                 .setHeadless(false));
             
             BrowserContext context = browser.newContext();
+            launch.headless = false;
+            launch.commit();
             Page page = context.newPage();
+            ResourcePolicy.Stats blocked = resources != null ? resources.attach(page) : null;
             
             // Navigate to the page
-            page.navigate("https://investors.globelifeinsurance.com/");
+            navigate(page, url, new Page.NavigateOptions());
             
             // Click the hamburger menu to reveal all links
-            page.click(".navbar-toggler");
+            clickToggle(page);
             
             // Wait for menu to expand
-            page.waitForTimeout(1000);
-            
-            // Fetch all links on the page with XPaths
-            List<LinkInfo> links = (List<LinkInfo>) page.evaluate("() => {" +
-                "function getXPath(element) {" +
-                "  if (element.id) return '//*[@id=\"' + element.id + '\"]';" +
-                "  if (element === document.body) return '/html/body';" +
-                "  let ix = 0;" +
-                "  const siblings = element.parentNode.childNodes;" +
-                "  for (let i = 0; i < siblings.length; i++) {" +
-                "    const sibling = siblings[i];" +
-                "    if (sibling === element) {" +
-                "      return getXPath(element.parentNode) + '/' + element.tagName.toLowerCase() + '[' + (ix + 1) + ']';" +
-                "    }" +
-                "    if (sibling.nodeType === 1 && sibling.tagName === element.tagName) {" +
-                "      ix++;" +
-                "    }" +
-                "  }" +
-                "}" +
-                "const anchors = Array.from(document.querySelectorAll('a'));" +
-                "return anchors.map(anchor => ({" +
-                "  text: anchor.innerText.trim()," +
-                "  href: anchor.href," +
-                "  target: anchor.target || '_self'," +
-                "  xpath: getXPath(anchor)" +
-                "})).filter(link => link.href);" +
-            "}");
+            PageReadiness.await(page, MENU_TOGGLE_SELECTOR, readiness);
             
-            // Display results
-            System.out.println("Found " + links.size() + " links:\n");
-            for (int i = 0; i < links.size(); i++) {
-                LinkInfo link = links.get(i);
-                System.out.println((i + 1) + ". " + (link.text.isEmpty() ? "(no text)" : link.text));
-                System.out.println("   URL: " + link.href);
-                System.out.println("   Target: " + link.target);
-                System.out.println("   XPath: " + link.xpath + "\n");
+            // Fetch all links on the page with XPaths, printing and saving each as it is decoded
+            long start = System.nanoTime();
+            int[] index = new int[1];
+            String pageUrl = page.url();
+            try (LinkSink writer = openSink(output, pretty, shards);
+                 LinkValidator.Session health = validate ? startValidation(output) : null) {
+                int count = extractLinks(page, link -> {
+                    System.out.println(++index[0] + ". " + (link.text.isEmpty() ? "(no text)" : link.text));
+                    System.out.println("   URL: " + link.href);
+                    System.out.println("   Target: " + link.target);
+                    System.out.println("   XPath: " + link.xpath + "\n");
+                    // Only the write is timed, so console output and validation stay out of the phase breakdown
+                    FetchLinksEvents.Serialize serialize = new FetchLinksEvents.Serialize();
+                    serialize.begin();
+                    try {
+                        writer.writeLink(link);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    serialize.url = pageUrl;
+                    serialize.linkCount = 1;
+                    serialize.commit();
+                    if (health != null) {
+                        health.offer(link.href, pageUrl);
+                    }
+                });
+                
+                if (blocked != null) {
+                    System.out.println("Resources: " + blocked);
+                }
+                System.out.println("Found " + count + " links");
+                System.out.println("Links saved to " + output);
+                if (health != null) {
+                    finishValidation(health, output, start);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error saving to JSON: " + e.getMessage());
             }
             
-            // Save to JSON file
-            saveLinksToJson(links, "links.json");
-            System.out.println("Links saved to links.json");
-            
             browser.close();
         }
     }
     
-    private static void saveLinksToJson(List<LinkInfo> links, String filename) {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        try (FileWriter writer = new FileWriter(filename)) {
-            gson.toJson(links, writer);
+    /**
+     * Crawl options with per-host politeness enabled, sharing the HTTP concurrency cap across hosts
+     */
+    private static LinkCrawler.CrawlOptions politeCrawlOptions(LinkCrawler.CrawlOptions options) {
+        options = options != null ? options : new LinkCrawler.CrawlOptions();
+        if (options.politeness == null) {
+            options.politeness = new PolitenessScheduler.Options();
+            options.politeness.totalInFlight = options.httpConcurrency;
+        }
+        return options;
+    }
+    
+    /**
+     * Crawl breadth-first from the given URL, streaming every visited page with its links to the file
+     * and, when a graph directory is given, into a memory-mapped link graph
+     */
+    private static void crawl(String url, LinkCrawler.CrawlOptions options, String filename,
+                              boolean pretty, LinkShardWriter.Options shards, boolean validate, Path graphDirectory) {
+        long start = System.nanoTime();
+        long[] linkCount = new long[1];
+        String seed = LinkCrawler.normalize(url);
+        try (LinkSink writer = openSink(filename, pretty, shards);
+             LinkGraphWriter graph = graphDirectory != null ? new LinkGraphWriter(graphDirectory) : null;
+             LinkValidator.Session health = validate ? startValidation(filename) : null) {
+            int pages = new LinkCrawler(options).crawl(url, result -> {
+                try {
+                    FetchLinksEvents.Serialize serialize = new FetchLinksEvents.Serialize();
+                    serialize.begin();
+                    writer.writePage(result);
+                    serialize.url = result.url;
+                    serialize.linkCount = result.links.size();
+                    serialize.commit();
+                    if (graph != null) {
+                        List<String> targets = new ArrayList<>();
+                        for (LinkInfo link : result.links) {
+                            String target = LinkCrawler.normalize(link.href);
+                            if (target != null) {
+                                targets.add(target);
+                            }
+                        }
+                        graph.addPage(result.url, result.url.equals(seed), targets);
+                    }
+                    linkCount[0] += result.links.size();
+                    if (health != null) {
+                        for (LinkInfo link : result.links) {
+                            health.offer(link.href, result.url);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Crawled " + pages + " pages (" + linkCount[0] + " links) in " + elapsedMs + " ms");
+            System.out.println("Crawl results saved to " + filename);
+            if (graph != null) {
+                System.out.println("Link graph saved to " + graphDirectory);
+            }
+            if (health != null) {
+                finishValidation(health, filename, start);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error saving to JSON: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Start checking hrefs as they are found, streaming the health report next to the links file
+     */
+    private static LinkValidator.Session startValidation(String linksFile) throws IOException {
+        return new LinkValidator(new LinkValidator.Options()).stream(LinkValidator.reportPathFor(Path.of(linksFile)));
+    }
+    
+    /**
+     * Wait for the outstanding checks, close the report and print the summary
+     */
+    private static void finishValidation(LinkValidator.Session health, String linksFile, long start) {
+        Path report = LinkValidator.reportPathFor(Path.of(linksFile));
+        try {
+            health.close();
+            System.out.println("Checked " + health.checked() + " distinct links in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms, " + health.broken() + " broken; report saved to " + report);
+        } catch (IOException e) {
+            System.err.println("Error saving link report: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Open the hamburger menu when the page has one so that collapsed links are rendered
+     */
+    static void expandMenu(Page page, PageReadiness.Config readiness) {
+        if (page.locator(MENU_TOGGLE_SELECTOR).isVisible()) {
+            clickToggle(page);
+            PageReadiness.await(page, MENU_TOGGLE_SELECTOR, readiness);
+        }
+    }
+    
+    /**
+     * Navigate, recording a Navigate event with the response status
+     */
+    static Response navigate(Page page, String url, Page.NavigateOptions options) {
+        FetchLinksEvents.Navigate event = new FetchLinksEvents.Navigate();
+        event.begin();
+        Response response = page.navigate(url, options);
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.status = response != null ? response.status() : 0;
+            event.commit();
+        }
+        return response;
+    }
+    
+    static void clickToggle(Page page) {
+        FetchLinksEvents.ToggleClick event = new FetchLinksEvents.ToggleClick();
+        event.begin();
+        page.click(MENU_TOGGLE_SELECTOR);
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = page.url();
+            event.selector = MENU_TOGGLE_SELECTOR;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Run the extraction script on the current page and decode the result to LinkInfo
+     */
+    static List<LinkInfo> extractLinks(Page page) {
+        List<LinkInfo> links = new ArrayList<>();
+        extractLinks(page, links::add);
+        return links;
+    }
+    
+    /**
+     * Run the extraction script and pass each link to the sink as it is decoded
+     */
+    static int extractLinks(Page page, Consumer<LinkInfo> sink) {
+        FetchLinksEvents.Evaluate event = new FetchLinksEvents.Evaluate();
+        event.begin();
+        Object payload = page.evaluate(EXTRACT_LINKS_SCRIPT);
+        event.end();
+        if (!(payload instanceof String)) {
+            throw new PlaywrightException("Unexpected link payload: " + payload);
+        }
+        try {
+            int count = LinkPayload.decode(new StringReader((String) payload), sink);
+            if (event.shouldCommit()) {
+                event.url = page.url();
+                event.payloadBytes = ((String) payload).getBytes(StandardCharsets.UTF_8).length;
+                event.linkCount = count;
+                event.commit();
+            }
+            return count;
+        } catch (IOException e) {
+            throw new PlaywrightException("Malformed link payload: " + e.getMessage());
+        }
+    }
+    
+    private static void saveLinksToJson(List<LinkInfo> links, String filename, boolean pretty,
+                                        LinkShardWriter.Options shards) {
+        try (LinkSink writer = openSink(filename, pretty, shards)) {
+            FetchLinksEvents.Serialize serialize = new FetchLinksEvents.Serialize();
+            serialize.begin();
+            writer.writeAll(links);
+            serialize.linkCount = links.size();
+            serialize.commit();
         } catch (IOException e) {
             System.err.println("Error saving to JSON: " + e.getMessage());
         }
     }
+    
+    /**
+     * A single JSON array file, or a directory of rolling compressed JSON Lines shards
+     */
+    private static LinkSink openSink(String output, boolean pretty, LinkShardWriter.Options shards) throws IOException {
+        return shards != null ? new LinkShardWriter(Path.of(output), shards) : new LinkJsonWriter(Path.of(output), pretty);
+    }
 }
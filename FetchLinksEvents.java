@@ -0,0 +1,90 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for each phase of a FetchLinks run.
+ * Record with -XX:StartFlightRecording:filename=run.jfr and summarize with
+ * "java JfrPhaseReport run.jfr". Byte counts are only computed when an event
+ * is actually recorded, so the events cost next to nothing otherwise.
+ */
+public final class FetchLinksEvents {
+    
+    static final String PREFIX = "fetchlinks.";
+    
+    private FetchLinksEvents() {
+    }
+    
+    @Category("FetchLinks")
+    @StackTrace(false)
+    abstract static class PhaseEvent extends Event {
+        @Label("URL")
+        String url;
+    }
+    
+    @Name(PREFIX + "Launch")
+    @Label("Browser Launch")
+    @Description("Playwright start, Chromium launch and context creation")
+    public static class Launch extends PhaseEvent {
+        @Label("Headless")
+        boolean headless;
+    }
+    
+    @Name(PREFIX + "Navigate")
+    @Label("Navigate")
+    public static class Navigate extends PhaseEvent {
+        @Label("Status")
+        int status;
+    }
+    
+    @Name(PREFIX + "ToggleClick")
+    @Label("Menu Toggle Click")
+    public static class ToggleClick extends PhaseEvent {
+        @Label("Selector")
+        String selector;
+    }
+    
+    @Name(PREFIX + "Wait")
+    @Label("Menu Readiness Wait")
+    public static class Wait extends PhaseEvent {
+        @Label("Strategy")
+        String strategy;
+        @Label("Timed Out")
+        boolean timedOut;
+    }
+    
+    @Name(PREFIX + "Evaluate")
+    @Label("Link Extraction Script")
+    @Description("page.evaluate of the extraction script; the event ends before the payload is decoded")
+    public static class Evaluate extends PhaseEvent {
+        @Label("Payload Size")
+        @DataAmount
+        long payloadBytes;
+        @Label("Links")
+        int linkCount;
+    }
+    
+    @Name(PREFIX + "Serialize")
+    @Label("JSON Serialization")
+    public static class Serialize extends PhaseEvent {
+        @Label("Links")
+        int linkCount;
+    }
+    
+    @Name(PREFIX + "Write")
+    @Label("Output Write")
+    @Description("Flushing and closing the output; for shards this includes draining the writer thread")
+    public static class Write extends PhaseEvent {
+        @Label("Path")
+        String path;
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+        @Label("Records")
+        long records;
+    }
+}
@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Minimal streaming HTML tokenizer.
+ * Pulls start tags, end tags and text from a Reader through a fixed-size
+ * buffer, so documents of any size are tokenized in constant memory.
+ * Comments, doctypes and processing instructions are reported but not
+ * parsed; the contents of script and style are returned as raw text.
+ */
+public class HtmlTokenizer {
+    
+    public enum TokenType { START_TAG, END_TAG, TEXT, COMMENT, DOCTYPE, EOF }
+    
+    static final Set<String> VOID_ELEMENTS = Set.of(
+        "area", "base", "br", "col", "embed", "hr", "img", "input",
+        "link", "meta", "param", "source", "track", "wbr");
+    
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "textarea", "title");
+    
+    private static final Map<String, String> NAMED_ENTITIES = Map.ofEntries(
+        Map.entry("amp", "&"), Map.entry("lt", "<"), Map.entry("gt", ">"),
+        Map.entry("quot", "\""), Map.entry("apos", "'"), Map.entry("nbsp", "\u00a0"),
+        Map.entry("copy", "\u00a9"), Map.entry("reg", "\u00ae"), Map.entry("trade", "\u2122"),
+        Map.entry("ndash", "\u2013"), Map.entry("mdash", "\u2014"), Map.entry("hellip", "\u2026"),
+        Map.entry("lsquo", "\u2018"), Map.entry("rsquo", "\u2019"),
+        Map.entry("ldquo", "\u201c"), Map.entry("rdquo", "\u201d"));
+    
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    
+    private TokenType type;
+    private String tagName;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private boolean selfClosing;
+    private final StringBuilder text = new StringBuilder();
+    
+    // Set after a raw-text start tag: the next token is its content, then its end tag
+    private String rawTextElement;
+    private String pendingEndTag;
+    
+    public HtmlTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * Advance to the next token and return its type
+     */
+    public TokenType next() throws IOException {
+        attributes.clear();
+        text.setLength(0);
+        selfClosing = false;
+        tagName = null;
+        
+        if (pendingEndTag != null) {
+            tagName = pendingEndTag;
+            pendingEndTag = null;
+            return type = TokenType.END_TAG;
+        }
+        if (rawTextElement != null) {
+            String element = rawTextElement;
+            rawTextElement = null;
+            readRawText(element);
+            pendingEndTag = element;
+            if (element.equals("title") || element.equals("textarea")) {
+                String decoded = decodeEntities(text.toString());
+                text.setLength(0);
+                text.append(decoded);
+            }
+            return type = TokenType.TEXT;
+        }
+        
+        int c = peek(0);
+        if (c == -1) {
+            return type = TokenType.EOF;
+        }
+        if (c == '<') {
+            int n = peek(1);
+            if (n == '!') {
+                return readMarkupDeclaration();
+            }
+            if (n == '?') {
+                pos++;
+                skipPast(">");
+                return type = TokenType.COMMENT;
+            }
+            if (n == '/' && isLetter(peek(2))) {
+                pos += 2;
+                tagName = readName();
+                skipPast(">");
+                return type = TokenType.END_TAG;
+            }
+            if (isLetter(n)) {
+                pos++;
+                return readStartTag();
+            }
+        }
+        return readText();
+    }
+    
+    public TokenType type() {
+        return type;
+    }
+    
+    /**
+     * Lower-case tag name of the current START_TAG or END_TAG token
+     */
+    public String tagName() {
+        return tagName;
+    }
+    
+    /**
+     * Attributes of the current START_TAG token with entity references decoded
+     */
+    public Map<String, String> attributes() {
+        return attributes;
+    }
+    
+    public String attribute(String name) {
+        return attributes.get(name);
+    }
+    
+    public boolean selfClosing() {
+        return selfClosing;
+    }
+    
+    /**
+     * Decoded text of the current TEXT token
+     */
+    public String text() {
+        return text.toString();
+    }
+    
+    private TokenType readStartTag() throws IOException {
+        tagName = readName();
+        while (true) {
+            skipWhitespace();
+            int c = read();
+            if (c == -1 || c == '>') {
+                break;
+            }
+            if (c == '/') {
+                if (peek(0) == '>') {
+                    pos++;
+                    selfClosing = true;
+                    break;
+                }
+                continue;
+            }
+            StringBuilder name = new StringBuilder().append(Character.toLowerCase((char) c));
+            while ((c = peek(0)) != -1 && !Character.isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+                name.append(Character.toLowerCase((char) c));
+                pos++;
+            }
+            skipWhitespace();
+            String value = "";
+            if (peek(0) == '=') {
+                pos++;
+                skipWhitespace();
+                value = decodeEntities(readAttributeValue());
+            }
+            attributes.putIfAbsent(name.toString(), value);
+        }
+        if (RAW_TEXT_ELEMENTS.contains(tagName) && !selfClosing) {
+            rawTextElement = tagName;
+        }
+        return type = TokenType.START_TAG;
+    }
+    
+    private String readAttributeValue() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int quote = peek(0);
+        if (quote == '"' || quote == '\'') {
+            pos++;
+            int c;
+            while ((c = read()) != -1 && c != quote) {
+                value.append((char) c);
+            }
+            return value.toString();
+        }
+        int c;
+        while ((c = peek(0)) != -1 && !Character.isWhitespace(c) && c != '>') {
+            value.append((char) c);
+            pos++;
+        }
+        return value.toString();
+    }
+    
+    private TokenType readText() throws IOException {
+        StringBuilder raw = new StringBuilder();
+        raw.append((char) read());
+        int c;
+        while ((c = peek(0)) != -1) {
+            if (c == '<') {
+                int n = peek(1);
+                if (isLetter(n) || n == '/' || n == '!' || n == '?') {
+                    break;
+                }
+            }
+            raw.append((char) c);
+            pos++;
+        }
+        text.append(decodeEntities(raw.toString()));
+        return type = TokenType.TEXT;
+    }
+    
+    private TokenType readMarkupDeclaration() throws IOException {
+        if (peek(2) == '-' && peek(3) == '-') {
+            pos += 4;
+            skipPast("-->");
+            return type = TokenType.COMMENT;
+        }
+        pos += 2;
+        skipPast(">");
+        return type = TokenType.DOCTYPE;
+    }
+    
+    private void readRawText(String element) throws IOException {
+        String close = "</" + element;
+        int c;
+        while ((c = peek(0)) != -1) {
+            if (c == '<' && peek(1) == '/' && matchesIgnoreCase(close)) {
+                pos += close.length();
+                skipPast(">");
+                return;
+            }
+            text.append((char) c);
+            pos++;
+        }
+    }
+    
+    private boolean matchesIgnoreCase(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            int c = peek(i);
+            if (c == -1 || Character.toLowerCase((char) c) != s.charAt(i)) {
+                return false;
+            }
+        }
+        int after = peek(s.length());
+        return after == -1 || after == '>' || after == '/' || Character.isWhitespace(after);
+    }
+    
+    private String readName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = peek(0)) != -1 && !Character.isWhitespace(c) && c != '>' && c != '/') {
+            name.append(Character.toLowerCase((char) c));
+            pos++;
+        }
+        return name.toString();
+    }
+    
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek(0)) != -1 && Character.isWhitespace(c)) {
+            pos++;
+        }
+    }
+    
+    private void skipPast(String terminator) throws IOException {
+        int matched = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == terminator.charAt(matched)) {
+                if (++matched == terminator.length()) {
+                    return;
+                }
+            } else {
+                matched = c == terminator.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+    
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    private int read() throws IOException {
+        int c = peek(0);
+        if (c != -1) {
+            pos++;
+        }
+        return c;
+    }
+    
+    /**
+     * Look ahead without consuming; refills the buffer as needed
+     */
+    private int peek(int offset) throws IOException {
+        while (pos + offset >= limit) {
+            if (eof) {
+                return -1;
+            }
+            if (pos > 0) {
+                System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return buffer[pos + offset];
+    }
+    
+    /**
+     * Replace named and numeric character references
+     */
+    static String decodeEntities(String s) {
+        int amp = s.indexOf('&');
+        if (amp < 0) {
+            return s;
+        }
+        StringBuilder out = new StringBuilder(s.length());
+        int i = 0;
+        while (amp >= 0) {
+            out.append(s, i, amp);
+            int semi = s.indexOf(';', amp);
+            String replacement = null;
+            if (semi > amp + 1 && semi - amp <= 10) {
+                String ref = s.substring(amp + 1, semi);
+                if (ref.charAt(0) == '#') {
+                    try {
+                        int codePoint = ref.length() > 1 && (ref.charAt(1) == 'x' || ref.charAt(1) == 'X')
+                            ? Integer.parseInt(ref.substring(2), 16)
+                            : Integer.parseInt(ref.substring(1));
+                        replacement = new String(Character.toChars(codePoint));
+                    } catch (IllegalArgumentException e) {
+                        replacement = null;
+                    }
+                } else {
+                    replacement = NAMED_ENTITIES.get(ref);
+                }
+            }
+            if (replacement != null) {
+                out.append(replacement);
+                i = semi + 1;
+            } else {
+                out.append('&');
+                i = amp + 1;
+            }
+            amp = s.indexOf('&', i);
+        }
+        out.append(s, i, s.length());
+        return out.toString();
+    }
+}
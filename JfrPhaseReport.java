@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the FetchLinks events in a .jfr recording into a per-phase latency breakdown.
+ * Usage: java JfrPhaseReport run.jfr
+ */
+public class JfrPhaseReport {
+    
+    // Report order, following a FetchLinks run from launch to write
+    private static final List<String> PHASES = List.of(
+        "Launch", "Navigate", "ToggleClick", "Wait", "Evaluate", "Serialize", "Write");
+    
+    /**
+     * Durations and totals of one phase across the recording
+     */
+    static class Phase {
+        final String name;
+        private long[] durations = new long[64];
+        int count;
+        long totalNanos;
+        long bytes;
+        long links;
+        
+        Phase(String name) {
+            this.name = name;
+        }
+        
+        void add(RecordedEvent event) {
+            long nanos = event.getDuration().toNanos();
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = nanos;
+            totalNanos += nanos;
+            if (event.hasField("payloadBytes")) {
+                bytes += event.getLong("payloadBytes");
+            }
+            if (event.hasField("bytes")) {
+                bytes += event.getLong("bytes");
+            }
+            if (event.hasField("linkCount")) {
+                links += event.getInt("linkCount");
+            }
+        }
+        
+        long percentileNanos(double percentile) {
+            long[] sorted = Arrays.copyOf(durations, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(count * percentile) - 1)];
+        }
+    }
+    
+    public static Map<String, Phase> summarize(Path recording) throws IOException {
+        Map<String, Phase> phases = new LinkedHashMap<>();
+        for (String name : PHASES) {
+            phases.put(name, new Phase(name));
+        }
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                if (type.startsWith(FetchLinksEvents.PREFIX)) {
+                    String name = type.substring(FetchLinksEvents.PREFIX.length());
+                    phases.computeIfAbsent(name, Phase::new).add(event);
+                }
+            }
+        }
+        return phases;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java JfrPhaseReport <recording.jfr>");
+            System.exit(1);
+        }
+        Map<String, Phase> phases = summarize(Paths.get(args[0]));
+        long grandTotal = 0;
+        for (Phase phase : phases.values()) {
+            grandTotal += phase.totalNanos;
+        }
+        if (grandTotal == 0) {
+            System.out.println("No FetchLinks events in " + args[0]);
+            return;
+        }
+        
+        System.out.println(String.format("%-12s %7s %11s %6s %9s %9s %9s %9s %12s %9s",
+            "Phase", "Count", "Total ms", "Share", "Mean ms", "p50 ms", "p95 ms", "Max ms", "Bytes", "Links"));
+        List<Phase> recorded = new ArrayList<>();
+        for (Phase phase : phases.values()) {
+            if (phase.count > 0) {
+                recorded.add(phase);
+            }
+        }
+        for (Phase phase : recorded) {
+            System.out.println(String.format("%-12s %7d %11.1f %5.1f%% %9.2f %9.2f %9.2f %9.2f %12d %9d",
+                phase.name, phase.count, phase.totalNanos / 1e6, 100.0 * phase.totalNanos / grandTotal,
+                phase.totalNanos / 1e6 / phase.count, phase.percentileNanos(0.5) / 1e6,
+                phase.percentileNanos(0.95) / 1e6, phase.percentileNanos(1.0) / 1e6, phase.bytes, phase.links));
+        }
+        System.out.println("Phases overlap when pages run concurrently; shares are of summed phase time, not wall time.");
+    }
+}
@@ -0,0 +1,460 @@
+import com.microsoft.playwright.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Breadth-first crawler built on FetchLinks extraction.
+ * Follows the extracted LinkInfo.href values breadth-first up to a
+ * configurable depth, taking pages from a UrlFrontier in batches so the
+ * seen-set and pending queue stay off the heap. Pages are first fetched over plain HTTP by
+ * StaticLinkExtractor; only those that need JavaScript are rendered in the
+ * BrowserPool. Every page runs as its own virtual-thread task on a
+ * PageScheduler: one sized for HTTP fetches and one matching the pool.
+ */
+public class LinkCrawler {
+    
+    public static class CrawlOptions {
+        public int maxDepth = 2;
+        public int contexts = 4;
+        public int maxPages = 5000;
+        public boolean sameHostOnly = true;
+        public boolean headless = true;
+        public double navigationTimeoutMs = 30_000;
+        public long statsIntervalMs = 5_000;
+        public boolean staticFirst = true;
+        public int httpConcurrency = 32;
+        public int minStaticAnchors = 3;
+        public int batchSize = 1000;
+        public UrlFrontier.Options frontier = new UrlFrontier.Options();
+        // Directory of the RecrawlStore; null crawls everything from scratch
+        public Path incrementalDirectory;
+        // Directory of the CrawlCheckpoint write-ahead log; a rerun with the same directory resumes
+        public Path checkpointDirectory;
+        // Pages per sealed log segment
+        public int checkpointCompactEvery = 50_000;
+        // Per-host rate and adaptive concurrency limits for HTTP fetches; null only applies httpConcurrency
+        public PolitenessScheduler.Options politeness;
+        // Pages answered with 429 or 503 are requeued this many times, waiting Retry-After or 1s, 2s, 4s ...
+        public int maxThrottleRetries = 5;
+        public long maxThrottleBackoffMs = 60_000;
+        // Sitemap URLs or SitemapSeeder.AUTO; their pages are queued at depth 0 alongside the seed
+        public List<String> sitemaps = new ArrayList<>();
+        public PageReadiness.Config readiness = new PageReadiness.Config();
+        // Requests to abort on browser-rendered pages; null loads everything
+        public ResourcePolicy resources;
+    }
+    
+    public static class PageResult {
+        public String url;
+        public int depth;
+        public List<FetchLinks.LinkInfo> links;
+        public String error;
+        public String via;
+        public Integer blockedRequests;
+        public Long estimatedBytesSaved;
+        transient RecrawlStore.Validators validators;
+        transient boolean needsBrowser;
+        // HTTP status of the static fetch, PolitenessScheduler.FAILED if it threw, 0 for browser visits
+        transient int status;
+        // The host answered 429 or 503; the page is retried later instead of being recorded
+        transient boolean throttled;
+        transient long retryAfterMs = -1;
+        
+        PageResult(String url, int depth, List<FetchLinks.LinkInfo> links, String error, String via) {
+            this.url = url;
+            this.depth = depth;
+            this.links = links;
+            this.error = error;
+            this.via = via;
+        }
+    }
+    
+    /**
+     * Retry state of a throttled page
+     */
+    private static class Throttled {
+        final int attempts;
+        final long notBefore;
+        
+        Throttled(int attempts, long notBefore) {
+            this.attempts = attempts;
+            this.notBefore = notBefore;
+        }
+    }
+    
+    private final CrawlOptions options;
+    private final StaticLinkExtractor staticExtractor;
+    
+    public LinkCrawler(CrawlOptions options) {
+        this.options = options;
+        this.staticExtractor = new StaticLinkExtractor(
+            Duration.ofMillis((long) options.navigationTimeoutMs), options.minStaticAnchors);
+    }
+    
+    /**
+     * Crawl from the seed URL and return the visited pages in BFS order.
+     * All pages' links go into one CompactLinkStore as they arrive, so nav and footer
+     * links repeated on every page are held once; each page.links is a read-only view
+     * into the store, decoded on access.
+     */
+    public List<PageResult> crawl(String seedUrl) {
+        List<PageResult> results = new ArrayList<>();
+        CompactLinkStore.Builder links = new CompactLinkStore.Builder();
+        List<Integer> ends = new ArrayList<>();
+        crawl(seedUrl, page -> {
+            links.addAll(page.links);
+            page.links = Collections.emptyList();
+            ends.add(links.size());
+            results.add(page);
+        });
+        List<FetchLinks.LinkInfo> all = links.build().asList();
+        int start = 0;
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).links = all.subList(start, ends.get(i));
+            start = ends.get(i);
+        }
+        return results;
+    }
+    
+    /**
+     * Crawl from the seed URL, handing each visited page to the sink in BFS order
+     * as soon as it is extracted; returns the number of pages visited. The crawl is
+     * done with a page by the time the sink gets it, so the sink may replace page.links.
+     */
+    public int crawl(String seedUrl, Consumer<PageResult> sink) {
+        String seed = normalize(seedUrl);
+        if (seed == null) {
+            throw new IllegalArgumentException("Not a crawlable URL: " + seedUrl);
+        }
+        String seedHost = URI.create(seed).getHost();
+        
+        int visited = 0;
+        // Touched only by this thread; tasks get the retry time as a value
+        Map<String, Throttled> retries = new HashMap<>();
+        try (RecrawlStore store = options.incrementalDirectory != null
+                 ? new RecrawlStore(options.incrementalDirectory) : null;
+             UrlFrontier frontier = new UrlFrontier(options.frontier);
+             BrowserPool pool = new BrowserPool(options.contexts, options.headless);
+             PageScheduler httpScheduler = new PageScheduler(options.httpConcurrency);
+             PolitenessScheduler politeness = options.politeness != null ? new PolitenessScheduler(options.politeness) : null;
+             PageScheduler scheduler = new PageScheduler(pool.size());
+             SitemapSeeder seeder = options.sitemaps.isEmpty() ? null
+                 : new SitemapSeeder(Duration.ofMillis((long) options.navigationTimeoutMs));
+             CrawlCheckpoint checkpoint = options.checkpointDirectory != null
+                 ? new CrawlCheckpoint(options.checkpointDirectory, options.checkpointCompactEvery) : null) {
+            if (options.statsIntervalMs > 0) {
+                scheduler.startReporting(options.statsIntervalMs);
+            }
+            if (checkpoint != null) {
+                visited += resume(checkpoint, frontier, seedHost, sink);
+            }
+            frontier.offer(seed, 0);
+            if (seeder != null) {
+                seeder.start(seed, options.sitemaps, loc -> {
+                    String href = normalize(loc);
+                    if (href != null && (!options.sameHostOnly || seedHost.equalsIgnoreCase(URI.create(href).getHost()))) {
+                        frontier.offer(href, 0);
+                    }
+                    return frontier.seenCount() < options.maxPages;
+                });
+            }
+            
+            List<SpillingQueue.Entry> batch = new ArrayList<>(options.batchSize);
+            while (true) {
+                batch.clear();
+                SpillingQueue.Entry entry;
+                while (batch.size() < options.batchSize && (entry = frontier.poll()) != null) {
+                    batch.add(entry);
+                }
+                if (batch.isEmpty()) {
+                    // Keep extracting while the sitemaps are still being parsed
+                    if (seeder != null && (seeder.await(Duration.ofMillis(100)) || frontier.pending() > 0)) {
+                        continue;
+                    }
+                    break;
+                }
+                
+                // Incremental runs always probe over HTTP first to find unchanged pages
+                boolean httpFirst = options.staticFirst || store != null;
+                List<Future<PageResult>> futures = new ArrayList<>(batch.size());
+                for (SpillingQueue.Entry page : batch) {
+                    Throttled retry = retries.get(page.url);
+                    long notBefore = retry == null ? 0 : retry.notBefore;
+                    if (!httpFirst) {
+                        futures.add(scheduler.submit(notBefore, () -> visit(pool, page.url, page.depth)));
+                    } else if (politeness != null) {
+                        futures.add(politeness.submit(page.url, notBefore,
+                            () -> fetchStatic(page.url, page.depth, store), probe -> probe.status));
+                    } else {
+                        futures.add(httpScheduler.submit(notBefore, () -> fetchStatic(page.url, page.depth, store)));
+                    }
+                }
+                
+                // Hand pages the HTTP path could not handle to the browser pool
+                if (httpFirst) {
+                    for (int i = 0; i < futures.size(); i++) {
+                        PageResult probe = futures.get(i).get();
+                        if (probe.needsBrowser) {
+                            futures.set(i, scheduler.submit(() -> {
+                                PageResult rendered = visit(pool, probe.url, probe.depth);
+                                rendered.validators = probe.validators;
+                                return rendered;
+                            }));
+                        }
+                    }
+                }
+                
+                long queued = 0;
+                int requeued = 0;
+                for (Future<PageResult> future : futures) {
+                    PageResult result = future.get();
+                    if (result.throttled && retry(result, frontier, retries)) {
+                        requeued++;
+                        continue;
+                    }
+                    if (!retries.isEmpty()) {
+                        retries.remove(result.url);
+                    }
+                    visited++;
+                    if (store != null && result.error == null) {
+                        store.record(result.url, result.validators, result.links);
+                    }
+                    // Failed pages stay out of the log so a resumed run retries them
+                    if (checkpoint != null && result.error == null) {
+                        checkpoint.append(result);
+                    }
+                    queued += queueLinks(frontier, result, seedHost);
+                    sink.accept(result);
+                }
+                if (checkpoint != null) {
+                    checkpoint.sync();
+                }
+                System.out.println("Depth " + batch.get(0).depth + "-" + batch.get(batch.size() - 1).depth
+                    + ": visited " + (batch.size() - requeued) + " pages, queued " + queued + ", " + frontier.pending() + " pending"
+                    + (requeued > 0 ? ", " + requeued + " throttled pages requeued" : "")
+                    + " (http: " + (politeness != null ? politeness : httpScheduler.stats())
+                    + "; browser: " + scheduler.stats() + ")");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Crawl I/O failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Crawl interrupted after " + visited + " pages");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Crawl task failed", e.getCause());
+        }
+        return visited;
+    }
+    
+    /**
+     * Offer the page's crawlable links to the frontier one level deeper; returns how many were new
+     */
+    private long queueLinks(UrlFrontier frontier, PageResult result, String seedHost) {
+        if (result.depth >= options.maxDepth) {
+            return 0;
+        }
+        long queued = 0;
+        for (FetchLinks.LinkInfo link : result.links) {
+            String href = crawlable(link.href, seedHost);
+            if (href == null) {
+                continue;
+            }
+            if (frontier.seenCount() >= options.maxPages) {
+                break;
+            }
+            if (frontier.offer(href, result.depth + 1)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+    
+    /**
+     * Normalized href if the crawl may follow it from this seed, otherwise null
+     */
+    private String crawlable(String link, String seedHost) {
+        String href = normalize(link);
+        if (href == null || (options.sameHostOnly && !seedHost.equalsIgnoreCase(URI.create(href).getHost()))) {
+            return null;
+        }
+        return href;
+    }
+    
+    /**
+     * Rebuild the crawl state from the checkpoint log in one pass: completed pages go to the sink and
+     * are marked seen, while their links are held in a disk-spilling queue. The links are offered only
+     * after the pass, once every completed page is known, so the frontier holds exactly the pending pages.
+     */
+    private int resume(CrawlCheckpoint checkpoint, UrlFrontier frontier, String seedHost,
+                        Consumer<PageResult> sink) throws IOException {
+        long start = System.nanoTime();
+        int[] completed = new int[1];
+        try (SpillingQueue links = new SpillingQueue(Files.createTempDirectory("fetchlinks-resume"),
+                 options.frontier.memoryQueueCapacity)) {
+            checkpoint.replay(page -> {
+                if (!frontier.markSeen(page.url)) {
+                    return;
+                }
+                completed[0]++;
+                if (page.depth < options.maxDepth) {
+                    for (FetchLinks.LinkInfo link : page.links) {
+                        String href = crawlable(link.href, seedHost);
+                        if (href != null) {
+                            links.add(href, page.depth + 1);
+                        }
+                    }
+                }
+                sink.accept(page);
+            });
+            for (SpillingQueue.Entry link = links.poll(); link != null; link = links.poll()) {
+                if (frontier.seenCount() >= options.maxPages) {
+                    break;
+                }
+                frontier.offer(link.url, link.depth);
+            }
+        }
+        if (completed[0] > 0) {
+            System.out.println("[checkpoint] Resumed " + completed[0] + " completed pages, " + frontier.pending()
+                + " pending, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return completed[0];
+    }
+    
+    /**
+     * Requeue a throttled page with a backoff; returns false once it has used up its retries
+     */
+    private boolean retry(PageResult result, UrlFrontier frontier, Map<String, Throttled> retries) {
+        Throttled previous = retries.get(result.url);
+        int attempts = previous == null ? 1 : previous.attempts + 1;
+        if (attempts > options.maxThrottleRetries) {
+            retries.remove(result.url);
+            System.err.println("Giving up on " + result.url + " after " + options.maxThrottleRetries + " throttled retries");
+            return false;
+        }
+        long backoffMs = result.retryAfterMs >= 0 ? result.retryAfterMs : 1000L << Math.min(attempts - 1, 16);
+        backoffMs = Math.min(backoffMs, options.maxThrottleBackoffMs);
+        retries.put(result.url, new Throttled(attempts, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+        frontier.requeue(result.url, result.depth);
+        System.out.println("[throttle] " + result.url + " answered " + result.status + "; retry " + attempts
+            + " in " + backoffMs + " ms");
+        return true;
+    }
+    
+    /**
+     * Extract links without a browser, reusing the previous run's links when the page is unchanged.
+     * The returned result has needsBrowser set when the page must be rendered. Error statuses are
+     * returned as errors and never rendered; 429 and 503 are marked throttled so the page is retried.
+     */
+    private PageResult fetchStatic(String url, int depth, RecrawlStore store) throws InterruptedException {
+        PageResult fallback = new PageResult(url, depth, Collections.emptyList(), null, null);
+        fallback.needsBrowser = true;
+        try {
+            RecrawlStore.Validators previous = store == null ? null : store.validators(url);
+            StaticLinkExtractor.Result result = staticExtractor.extract(url, previous);
+            fallback.validators = result.validators;
+            fallback.status = result.status;
+            
+            if (result.status >= 400) {
+                PageResult failed = new PageResult(url, depth, Collections.emptyList(), "HTTP " + result.status, "http");
+                failed.status = result.status;
+                failed.throttled = result.status == 429 || result.status == 503;
+                failed.retryAfterMs = result.retryAfterMs;
+                return failed;
+            }
+            boolean unchanged = result.notModified
+                || (previous != null && previous.contentHash != null && result.validators != null
+                    && previous.contentHash.equals(result.validators.contentHash));
+            if (unchanged) {
+                List<FetchLinks.LinkInfo> links = store.previousLinks(url);
+                if (links != null) {
+                    PageResult cached = new PageResult(url, depth, links, null, "cache");
+                    cached.validators = result.validators;
+                    cached.status = result.status;
+                    return cached;
+                }
+            }
+            if (result.needsBrowser || !options.staticFirst) {
+                return fallback;
+            }
+            PageResult page = new PageResult(url, depth, result.links, null, "http");
+            page.validators = result.validators;
+            page.status = result.status;
+            return page;
+        } catch (IOException | IllegalArgumentException e) {
+            fallback.status = PolitenessScheduler.FAILED;
+            return fallback;
+        } catch (RuntimeException e) {
+            // A parser bug on one page should cost that page a browser render, not the whole crawl
+            System.err.println("Static extraction failed for " + url + ", rendering instead: " + e);
+            return fallback;
+        }
+    }
+    
+    private PageResult visit(BrowserPool pool, String url, int depth) throws InterruptedException {
+        try {
+            return render(pool, url, depth);
+        } catch (PlaywrightException e) {
+            // No page to render in: the browser failed to launch or its context could not open a page
+            System.err.println("Browser unavailable for " + url + ": " + e.getMessage());
+            return new PageResult(url, depth, Collections.emptyList(), e.getMessage(), "browser");
+        }
+    }
+    
+    private PageResult render(BrowserPool pool, String url, int depth) throws InterruptedException {
+        return pool.withPage(page -> {
+            ResourcePolicy.Stats blocked = options.resources != null ? options.resources.attach(page) : null;
+            try {
+                FetchLinks.navigate(page, url, new Page.NavigateOptions().setTimeout(options.navigationTimeoutMs));
+                FetchLinks.expandMenu(page, options.readiness);
+                PageResult result = new PageResult(url, depth, FetchLinks.extractLinks(page), null, "browser");
+                if (blocked != null) {
+                    result.blockedRequests = blocked.blockedRequests;
+                    result.estimatedBytesSaved = blocked.estimatedBytesSaved;
+                    System.out.println("Resources on " + url + ": " + blocked);
+                }
+                return result;
+            } catch (PlaywrightException e) {
+                System.err.println("Error crawling " + url + ": " + e.getMessage());
+                return new PageResult(url, depth, Collections.emptyList(), e.getMessage(), "browser");
+            }
+        });
+    }
+    
+    /**
+     * Reduce an href to a canonical http(s) URL without fragment, or null if it cannot be crawled
+     */
+    static String normalize(String href) {
+        if (href == null || href.isEmpty()) {
+            return null;
+        }
+        try {
+            URI uri = new URI(href.trim());
+            String scheme = uri.getScheme();
+            if (scheme == null || uri.getHost() == null
+                || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+                return null;
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            int port = uri.getPort();
+            boolean defaultPort = port == -1
+                || (port == 80 && scheme.equalsIgnoreCase("http"))
+                || (port == 443 && scheme.equalsIgnoreCase("https"));
+            return scheme.toLowerCase() + "://" + uri.getHost().toLowerCase()
+                + (defaultPort ? "" : ":" + port)
+                + path
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
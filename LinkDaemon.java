@@ -0,0 +1,221 @@
+import com.google.gson.Gson;
+import com.microsoft.playwright.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived extraction daemon.
+ * Keeps Playwright and warm browsers resident and serves extraction jobs
+ * over a local Unix-domain socket, so a one-off link dump skips the driver
+ * start-up and browser launch. The protocol is one JSON object per line in
+ * each direction:
+ *
+ *   request:  {"url": "https://...", "expandMenu": true}
+ *   response: {"url": "https://...", "links": [...], "elapsedMs": 312}
+ *             {"error": "..."}
+ *
+ * A request of {"command": "shutdown"} stops the daemon (FetchLinks --daemon-stop).
+ * Where the file system supports POSIX permissions the socket file is
+ * readable and writable by its owner only.
+ */
+public class LinkDaemon {
+    
+    static class Request {
+        String command;
+        String url;
+        boolean expandMenu = true;
+        String ready;
+    }
+    
+    static class Response {
+        String url;
+        List<FetchLinks.LinkInfo> links;
+        long elapsedMs;
+        Integer blockedRequests;
+        Long estimatedBytesSaved;
+        String error;
+    }
+    
+    private static final Gson GSON = new Gson();
+    
+    private final Path socketPath;
+    private final BrowserPool pool;
+    private final PageReadiness.Config readiness;
+    private final ResourcePolicy resources;
+    private volatile boolean running = true;
+    private ServerSocketChannel server;
+    
+    public LinkDaemon(Path socketPath, int browsers, PageReadiness.Config readiness, ResourcePolicy resources) {
+        this.socketPath = socketPath;
+        this.pool = new BrowserPool(browsers, true);
+        this.readiness = readiness;
+        this.resources = resources;
+    }
+    
+    /**
+     * Launch the browsers, then accept connections until a shutdown request arrives
+     */
+    public void serve() throws IOException {
+        long start = System.nanoTime();
+        pool.warmUp();
+        System.out.println("Started " + pool.size() + " browser(s) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        
+        Files.deleteIfExists(socketPath);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        bindOwnerOnly();
+        System.out.println("Listening on " + socketPath);
+        
+        ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            while (running) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (IOException e) {
+                    if (running) {
+                        throw e;
+                    }
+                    break;
+                }
+                connections.submit(() -> handle(client));
+            }
+        } finally {
+            // Interrupting idle connection threads closes their channels
+            connections.shutdownNow();
+            server.close();
+            Files.deleteIfExists(socketPath);
+            pool.close();
+        }
+    }
+    
+    /**
+     * Bind in a private directory, restrict the socket file to the owner, then move it into
+     * place, so no other user can connect while the permissions are still the umask default
+     */
+    private void bindOwnerOnly() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            return;
+        }
+        Path parent = socketPath.toAbsolutePath().getParent();
+        Path staging = Files.createTempDirectory(parent, ".linkdaemon",
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Path staged = staging.resolve("socket");
+        try {
+            server.bind(UnixDomainSocketAddress.of(staged));
+            Files.setPosixFilePermissions(staged, PosixFilePermissions.fromString("rw-------"));
+            Files.move(staged, socketPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staged);
+            Files.delete(staging);
+        }
+    }
+    
+    private Void handle(SocketChannel client) throws IOException {
+        try (client;
+             BufferedReader in = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+             Writer out = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Response response = process(line);
+                out.write(GSON.toJson(response));
+                out.write('\n');
+                out.flush();
+                if (!running) {
+                    server.close();
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private Response process(String line) {
+        Response response = new Response();
+        long start = System.nanoTime();
+        try {
+            Request request = GSON.fromJson(line, Request.class);
+            if ("shutdown".equals(request.command)) {
+                running = false;
+                return response;
+            }
+            if (request.url == null) {
+                response.error = "missing url";
+                return response;
+            }
+            response.url = request.url;
+            PageReadiness.Config config = request.ready != null ? PageReadiness.Config.parse(request.ready) : readiness;
+            response.links = pool.withPage(page -> {
+                ResourcePolicy.Stats blocked = resources != null ? resources.attach(page) : null;
+                FetchLinks.navigate(page, request.url, new Page.NavigateOptions());
+                if (request.expandMenu) {
+                    FetchLinks.expandMenu(page, config);
+                }
+                if (blocked != null) {
+                    response.blockedRequests = blocked.blockedRequests;
+                    response.estimatedBytesSaved = blocked.estimatedBytesSaved;
+                }
+                return FetchLinks.extractLinks(page);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.error = "interrupted";
+        } catch (RuntimeException e) {
+            response.error = e.getMessage();
+        }
+        response.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return response;
+    }
+    
+    /**
+     * Ask a running daemon to extract the links of one page
+     */
+    public static List<FetchLinks.LinkInfo> request(Path socketPath, String url) throws IOException {
+        Request request = new Request();
+        request.url = url;
+        Response response = send(socketPath, request);
+        if (response.error != null) {
+            throw new IOException("Daemon could not extract " + url + ": " + response.error);
+        }
+        return response.links;
+    }
+    
+    /**
+     * Ask a running daemon to stop; it answers before closing its socket
+     */
+    public static void shutdown(Path socketPath) throws IOException {
+        Request request = new Request();
+        request.command = "shutdown";
+        send(socketPath, request);
+    }
+    
+    private static Response send(Path socketPath, Request request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+             BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            out.write(GSON.toJson(request));
+            out.write('\n');
+            out.flush();
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Daemon closed the connection");
+            }
+            return GSON.fromJson(line, Response.class);
+        }
+    }
+}
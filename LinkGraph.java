@@ -0,0 +1,260 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Read-only, memory-mapped view of a crawl's link graph as written by LinkGraphWriter.
+ * Nodes are URLs with dense int ids; edges are stored in compressed sparse row
+ * form in both directions so in-links, orphan pages and click depth can be
+ * answered without loading the graph onto the heap.
+ */
+public class LinkGraph implements Closeable {
+    
+    static final String META = "meta.properties";
+    static final String URLS = "urls.bin";
+    static final String URL_OFFSETS = "url-offsets.bin";
+    static final String FLAGS = "flags.bin";
+    static final String OUT_OFFSETS = "out-offsets.bin";
+    static final String OUT_EDGES = "out-edges.bin";
+    static final String IN_OFFSETS = "in-offsets.bin";
+    static final String IN_EDGES = "in-edges.bin";
+    static final String INDEX = "index.bin";
+    
+    static final byte FLAG_CRAWLED = 1;
+    static final byte FLAG_SEED = 2;
+    
+    /** Click depth reported for nodes that cannot be reached from any seed */
+    public static final int UNREACHABLE = -1;
+    /** Click depth reported for a URL that is not a node of the graph */
+    public static final int NOT_IN_GRAPH = -2;
+    
+    private final int nodes;
+    private final long edges;
+    private final MappedArray urls;
+    private final MappedArray urlOffsets;
+    private final MappedArray flags;
+    private final MappedArray outOffsets;
+    private final MappedArray outEdges;
+    private final MappedArray inOffsets;
+    private final MappedArray inEdges;
+    private final MappedArray index;
+    private final int indexMask;
+    // Computed on first use; the graph is read-only, so one BFS serves every query
+    private IntBuffer depths;
+    
+    public LinkGraph(Path directory) throws IOException {
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(META))) {
+            meta.load(in);
+        }
+        this.nodes = Integer.parseInt(meta.getProperty("nodes"));
+        this.edges = Long.parseLong(meta.getProperty("edges"));
+        this.urls = MappedArray.openReadOnly(directory.resolve(URLS));
+        this.urlOffsets = MappedArray.openReadOnly(directory.resolve(URL_OFFSETS));
+        this.flags = MappedArray.openReadOnly(directory.resolve(FLAGS));
+        this.outOffsets = MappedArray.openReadOnly(directory.resolve(OUT_OFFSETS));
+        this.outEdges = MappedArray.openReadOnly(directory.resolve(OUT_EDGES));
+        this.inOffsets = MappedArray.openReadOnly(directory.resolve(IN_OFFSETS));
+        this.inEdges = MappedArray.openReadOnly(directory.resolve(IN_EDGES));
+        this.index = MappedArray.openReadOnly(directory.resolve(INDEX));
+        this.indexMask = (int) (index.byteLength() / 4) - 1;
+    }
+    
+    static long hash(String url) {
+        return OffHeapBloomFilter.Hashing.hash64(url.getBytes(StandardCharsets.UTF_8), 0);
+    }
+    
+    public int nodeCount() {
+        return nodes;
+    }
+    
+    public long edgeCount() {
+        return edges;
+    }
+    
+    public String url(int id) {
+        long start = urlOffsets.getLong(id);
+        long end = urlOffsets.getLong(id + 1L);
+        return new String(urls.getBytes(start, (int) (end - start)), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Node id for a URL, or -1 if the URL is not in the graph
+     */
+    public int id(String url) {
+        int slot = (int) (hash(url) & indexMask);
+        int stored;
+        while ((stored = index.getInt(slot)) != 0) {
+            if (url.equals(url(stored - 1))) {
+                return stored - 1;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+        return -1;
+    }
+    
+    public boolean isCrawled(int id) {
+        return (flags.getByte(id) & FLAG_CRAWLED) != 0;
+    }
+    
+    public boolean isSeed(int id) {
+        return (flags.getByte(id) & FLAG_SEED) != 0;
+    }
+    
+    public int outDegree(int id) {
+        return (int) (outOffsets.getLong(id + 1L) - outOffsets.getLong(id));
+    }
+    
+    public int inDegree(int id) {
+        return (int) (inOffsets.getLong(id + 1L) - inOffsets.getLong(id));
+    }
+    
+    public int[] outLinks(int id) {
+        return neighbours(outOffsets, outEdges, id);
+    }
+    
+    public int[] inLinks(int id) {
+        return neighbours(inOffsets, inEdges, id);
+    }
+    
+    private static int[] neighbours(MappedArray offsets, MappedArray targets, int id) {
+        long start = offsets.getLong(id);
+        int[] result = new int[(int) (offsets.getLong(id + 1L) - start)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = targets.getInt(start + i);
+        }
+        return result;
+    }
+    
+    /**
+     * Crawled pages, other than seeds, that no crawled page links to
+     */
+    public List<Integer> orphans() {
+        List<Integer> orphans = new ArrayList<>();
+        for (int id = 0; id < nodes; id++) {
+            if (isCrawled(id) && !isSeed(id) && inDegree(id) == 0) {
+                orphans.add(id);
+            }
+        }
+        return orphans;
+    }
+    
+    /**
+     * Shortest click depth from the nearest seed for every node, by breadth-first
+     * search over the forward edges. Depths and the BFS queue live in direct
+     * buffers so large graphs do not need a heap-sized int[]; the search runs
+     * once and later calls share its result.
+     */
+    public synchronized IntBuffer clickDepths() {
+        if (depths == null) {
+            depths = searchDepths();
+        }
+        return depths.asReadOnlyBuffer();
+    }
+    
+    private IntBuffer searchDepths() {
+        IntBuffer depth = ByteBuffer.allocateDirect(nodes * 4).asIntBuffer();
+        IntBuffer queue = ByteBuffer.allocateDirect(nodes * 4).asIntBuffer();
+        int head = 0;
+        int tail = 0;
+        for (int id = 0; id < nodes; id++) {
+            depth.put(id, UNREACHABLE);
+            if (isSeed(id)) {
+                depth.put(id, 0);
+                queue.put(tail++, id);
+            }
+        }
+        while (head < tail) {
+            int source = queue.get(head++);
+            int next = depth.get(source) + 1;
+            long end = outOffsets.getLong(source + 1L);
+            for (long e = outOffsets.getLong(source); e < end; e++) {
+                int target = outEdges.getInt(e);
+                if (depth.get(target) == UNREACHABLE) {
+                    depth.put(target, next);
+                    queue.put(tail++, target);
+                }
+            }
+        }
+        return depth;
+    }
+    
+    /**
+     * Shortest click depth from a seed to the given URL, UNREACHABLE, or NOT_IN_GRAPH
+     */
+    public int clickDepth(String url) {
+        int id = id(url);
+        return id < 0 ? NOT_IN_GRAPH : clickDepths().get(id);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (MappedArray array : new MappedArray[] { urls, urlOffsets, flags, outOffsets, outEdges, inOffsets, inEdges, index }) {
+            array.close();
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java LinkGraph <graph-dir> stats|orphans|depth <url>");
+            System.exit(1);
+        }
+        try (LinkGraph graph = new LinkGraph(Paths.get(args[0]))) {
+            switch (args[1]) {
+                case "stats":
+                    System.out.println("Nodes: " + graph.nodeCount());
+                    System.out.println("Edges: " + graph.edgeCount());
+                    IntBuffer depths = graph.clickDepths();
+                    int maxDepth = 0;
+                    int unreachable = 0;
+                    for (int id = 0; id < graph.nodeCount(); id++) {
+                        int d = depths.get(id);
+                        if (d == UNREACHABLE) {
+                            unreachable++;
+                        } else {
+                            maxDepth = Math.max(maxDepth, d);
+                        }
+                    }
+                    System.out.println("Max click depth: " + maxDepth);
+                    System.out.println("Unreachable from seeds: " + unreachable);
+                    System.out.println("Orphan pages: " + graph.orphans().size());
+                    break;
+                case "orphans":
+                    for (int id : graph.orphans()) {
+                        System.out.println(graph.url(id));
+                    }
+                    break;
+                case "depth":
+                    if (args.length < 3) {
+                        System.err.println("depth requires a URL");
+                        System.exit(1);
+                    }
+                    // Nodes are stored as the crawler normalized them
+                    String url = LinkCrawler.normalize(args[2]);
+                    if (url == null) {
+                        System.err.println("Not an http(s) URL: " + args[2]);
+                        System.exit(1);
+                    }
+                    int depth = graph.clickDepth(url);
+                    if (depth == NOT_IN_GRAPH) {
+                        System.out.println("not in graph: " + url);
+                        System.exit(2);
+                    }
+                    System.out.println(depth == UNREACHABLE ? "unreachable" : Integer.toString(depth));
+                    break;
+                default:
+                    System.err.println("Unknown command: " + args[1]);
+                    System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Builds a LinkGraph directory from crawl results.
+ * Pages and their links are streamed in; edges are spooled to a temporary
+ * file and laid out as forward and reverse CSR arrays when the writer is
+ * closed. Only the URL-to-id map and per-node degree counters stay on the
+ * heap while writing.
+ */
+public class LinkGraphWriter implements Closeable {
+    
+    private final Path directory;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final DataOutputStream urls;
+    private final DataOutputStream urlOffsets;
+    private final DataOutputStream edgeSpool;
+    private final Path edgeSpoolFile;
+    private long urlBytes;
+    private long edgeCount;
+    
+    private byte[] flags = new byte[1024];
+    private int[] outDegree = new int[1024];
+    private int[] inDegree = new int[1024];
+    
+    public LinkGraphWriter(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.urls = open(directory.resolve(LinkGraph.URLS));
+        this.urlOffsets = open(directory.resolve(LinkGraph.URL_OFFSETS));
+        this.edgeSpoolFile = Files.createTempFile(directory, "edges", ".spool");
+        this.edgeSpool = open(edgeSpoolFile);
+    }
+    
+    private static DataOutputStream open(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    }
+    
+    /**
+     * Add a crawled page and the hrefs it links to; duplicate hrefs on one page form one edge
+     */
+    public void addPage(String url, boolean seed, Collection<String> hrefs) throws IOException {
+        int source = nodeId(url);
+        flags[source] = (byte) (flags[source] | LinkGraph.FLAG_CRAWLED | (seed ? LinkGraph.FLAG_SEED : 0));
+        Set<Integer> targets = new HashSet<>();
+        for (String href : hrefs) {
+            int target = nodeId(href);
+            if (target != source && targets.add(target)) {
+                edgeSpool.writeInt(source);
+                edgeSpool.writeInt(target);
+                outDegree[source]++;
+                inDegree[target]++;
+                edgeCount++;
+            }
+        }
+    }
+    
+    private int nodeId(String url) throws IOException {
+        Integer existing = ids.get(url);
+        if (existing != null) {
+            return existing;
+        }
+        int id = ids.size();
+        ids.put(url, id);
+        if (id == flags.length) {
+            flags = Arrays.copyOf(flags, id * 2);
+            outDegree = Arrays.copyOf(outDegree, id * 2);
+            inDegree = Arrays.copyOf(inDegree, id * 2);
+        }
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        urlOffsets.writeLong(urlBytes);
+        urls.write(bytes);
+        urlBytes += bytes.length;
+        return id;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        int nodes = ids.size();
+        urlOffsets.writeLong(urlBytes);
+        urlOffsets.close();
+        urls.close();
+        edgeSpool.close();
+        
+        Files.write(directory.resolve(LinkGraph.FLAGS), Arrays.copyOf(flags, nodes));
+        try (MappedArray outOffsets = prefixSums(directory.resolve(LinkGraph.OUT_OFFSETS), outDegree, nodes);
+             MappedArray inOffsets = prefixSums(directory.resolve(LinkGraph.IN_OFFSETS), inDegree, nodes);
+             MappedArray outEdges = MappedArray.create(directory.resolve(LinkGraph.OUT_EDGES), edgeCount * 4);
+             MappedArray inEdges = MappedArray.create(directory.resolve(LinkGraph.IN_EDGES), edgeCount * 4)) {
+            // Reuse the degree counters as fill cursors
+            Arrays.fill(outDegree, 0);
+            Arrays.fill(inDegree, 0);
+            try (DataInputStream spool = new DataInputStream(
+                     new BufferedInputStream(Files.newInputStream(edgeSpoolFile), 1 << 16))) {
+                for (long e = 0; e < edgeCount; e++) {
+                    int source = spool.readInt();
+                    int target = spool.readInt();
+                    outEdges.putInt(outOffsets.getLong(source) + outDegree[source]++, target);
+                    inEdges.putInt(inOffsets.getLong(target) + inDegree[target]++, source);
+                }
+            }
+            outEdges.flush();
+            inEdges.flush();
+        } finally {
+            Files.deleteIfExists(edgeSpoolFile);
+        }
+        
+        writeIndex(nodes);
+        
+        Properties meta = new Properties();
+        meta.setProperty("nodes", Integer.toString(nodes));
+        meta.setProperty("edges", Long.toString(edgeCount));
+        try (OutputStream out = Files.newOutputStream(directory.resolve(LinkGraph.META))) {
+            meta.store(out, "FetchLinks link graph");
+        }
+    }
+    
+    private static MappedArray prefixSums(Path file, int[] degrees, int nodes) throws IOException {
+        MappedArray offsets = MappedArray.create(file, (nodes + 1L) * 8);
+        long sum = 0;
+        for (int i = 0; i < nodes; i++) {
+            offsets.putLong(i, sum);
+            sum += degrees[i];
+        }
+        offsets.putLong(nodes, sum);
+        offsets.flush();
+        return offsets;
+    }
+    
+    /**
+     * Open-addressing hash index from URL to node id, stored as id + 1 per slot
+     */
+    private void writeIndex(int nodes) throws IOException {
+        int capacity = 16;
+        while (capacity < nodes * 2L) {
+            capacity <<= 1;
+        }
+        try (MappedArray index = MappedArray.create(directory.resolve(LinkGraph.INDEX), capacity * 4L)) {
+            int mask = capacity - 1;
+            for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+                int slot = (int) (LinkGraph.hash(entry.getKey()) & mask);
+                while (index.getInt(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index.putInt(slot, entry.getValue() + 1);
+            }
+            index.flush();
+        }
+    }
+}
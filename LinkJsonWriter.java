@@ -0,0 +1,105 @@
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams links to a JSON array file as they are extracted.
+ * Each call writes straight through Gson's JsonWriter into a buffered file
+ * channel, so memory use does not grow with the number of links. Output is
+ * compact unless pretty printing is requested.
+ */
+public class LinkJsonWriter implements LinkSink {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Path file;
+    private final JsonWriter json;
+    private long count;
+    
+    public LinkJsonWriter(Path file, boolean pretty) throws IOException {
+        this.file = file;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.json = new JsonWriter(new BufferedWriter(
+            Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE));
+        if (pretty) {
+            json.setIndent("  ");
+        }
+        json.setSerializeNulls(false);
+        json.beginArray();
+    }
+    
+    /**
+     * Append one link as an array element
+     */
+    @Override
+    public synchronized void writeLink(FetchLinks.LinkInfo link) throws IOException {
+        writeLinkObject(json, link);
+        count++;
+    }
+    
+    /**
+     * Append one crawled page with its links as an array element
+     */
+    @Override
+    public synchronized void writePage(LinkCrawler.PageResult page) throws IOException {
+        writePageObject(json, page);
+        count++;
+    }
+    
+    /**
+     * Number of top-level elements written so far
+     */
+    public synchronized long count() {
+        return count;
+    }
+    
+    static void writePageObject(JsonWriter json, LinkCrawler.PageResult page) throws IOException {
+        json.beginObject();
+        json.name("url").value(page.url);
+        json.name("depth").value(page.depth);
+        json.name("via").value(page.via);
+        json.name("error").value(page.error);
+        json.name("blockedRequests").value(page.blockedRequests);
+        json.name("estimatedBytesSaved").value(page.estimatedBytesSaved);
+        json.name("links").beginArray();
+        for (FetchLinks.LinkInfo link : page.links) {
+            writeLinkObject(json, link);
+        }
+        json.endArray();
+        json.endObject();
+    }
+    
+    static void writeLinkObject(JsonWriter json, FetchLinks.LinkInfo link) throws IOException {
+        json.beginObject();
+        json.name("text").value(link.text);
+        json.name("href").value(link.href);
+        json.name("target").value(link.target);
+        json.name("xpath").value(link.xpath);
+        json.endObject();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        FetchLinksEvents.Write event = new FetchLinksEvents.Write();
+        event.begin();
+        try {
+            json.endArray();
+        } finally {
+            json.close();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.toString();
+            event.bytes = Files.size(file);
+            event.records = count;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Decoder for the compact payload returned by FetchLinks.EXTRACT_LINKS_SCRIPT.
+ * The script sends a single JSON string instead of one map per link:
+ *
+ *   {"strings": [...], "links": [text, href, target, xpath, text, href, ...]}
+ *
+ * where "links" holds four indexes into the shared string table per link,
+ * so repeated targets, hrefs and texts cross the driver bridge once.
+ * "strings" is always written first, which lets links be decoded and handed
+ * on one at a time while the payload is read.
+ */
+public final class LinkPayload {
+    
+    private LinkPayload() {
+    }
+    
+    public static List<FetchLinks.LinkInfo> decode(String payload) {
+        List<FetchLinks.LinkInfo> links = new ArrayList<>();
+        try {
+            decode(new StringReader(payload), links::add);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed link payload: " + e.getMessage(), e);
+        }
+        return links;
+    }
+    
+    /**
+     * Stream-decode a payload, passing each link to the sink in document order
+     */
+    public static int decode(Reader payload, Consumer<FetchLinks.LinkInfo> sink) throws IOException {
+        JsonReader json = new JsonReader(payload);
+        List<String> strings = new ArrayList<>();
+        int count = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "strings":
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        strings.add(json.nextString());
+                    }
+                    json.endArray();
+                    break;
+                case "links":
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        String text = lookup(strings, json.nextInt());
+                        String href = lookup(strings, json.nextInt());
+                        String target = lookup(strings, json.nextInt());
+                        String xpath = lookup(strings, json.nextInt());
+                        sink.accept(new FetchLinks.LinkInfo(text, href, target, xpath));
+                        count++;
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return count;
+    }
+    
+    private static String lookup(List<String> strings, int index) throws IOException {
+        if (index < 0 || index >= strings.size()) {
+            throw new IOException("String index " + index + " outside table of " + strings.size());
+        }
+        return strings.get(index);
+    }
+}
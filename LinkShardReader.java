@@ -0,0 +1,121 @@
+import com.google.gson.stream.JsonReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams links back out of the shards written by LinkShardWriter.
+ * Shards are decompressed as a stream and parsed one line at a time, so only
+ * the current line is held in memory. Page lines are flattened into their links.
+ */
+public class LinkShardReader {
+    
+    /**
+     * Complete shards in the directory in write order; unfinished .part files are skipped
+     */
+    public static List<Path> shards(Path directory) throws IOException {
+        List<Path> shards = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (LinkShardWriter.SHARD_NAME.matcher(file.getFileName().toString()).matches()) {
+                    shards.add(file);
+                }
+            }
+        }
+        shards.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return shards;
+    }
+    
+    /**
+     * Hand every link in every shard to the consumer; returns the number of links read
+     */
+    public static long read(Path directory, Consumer<FetchLinks.LinkInfo> consumer) throws IOException {
+        long count = 0;
+        for (Path shard : shards(directory)) {
+            count += readShard(shard, consumer);
+        }
+        return count;
+    }
+    
+    public static long readShard(Path shard, Consumer<FetchLinks.LinkInfo> consumer) throws IOException {
+        long count = 0;
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                 LinkShardWriter.Compression.unwrap(shard, new BufferedInputStream(Files.newInputStream(shard), 1 << 16)),
+                 StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    count += readRecord(new JsonReader(new StringReader(line)), consumer);
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Read one line, either a link or a page whose links are passed on in order
+     */
+    private static long readRecord(JsonReader json, Consumer<FetchLinks.LinkInfo> consumer) throws IOException {
+        String text = null;
+        String href = null;
+        String target = null;
+        String xpath = null;
+        long count = 0;
+        boolean page = false;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "text":
+                    text = json.nextString();
+                    break;
+                case "href":
+                    href = json.nextString();
+                    break;
+                case "target":
+                    target = json.nextString();
+                    break;
+                case "xpath":
+                    xpath = json.nextString();
+                    break;
+                case "links":
+                    page = true;
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        count += readRecord(json, consumer);
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        if (page) {
+            return count;
+        }
+        consumer.accept(new FetchLinks.LinkInfo(text, href, target, xpath));
+        return 1;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java LinkShardReader <shard-dir>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        long links = read(Paths.get(args[0]), link -> { });
+        System.out.println("Read " + links + " links from " + shards(Paths.get(args[0])).size() + " shards in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,289 @@
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes links as compressed JSON Lines shards on a background thread.
+ * Callers only enqueue links or pages; the writer thread serializes each one
+ * as a single line, compresses it into links-NNNNN.jsonl.gz (or .zst) and starts
+ * a new shard once the current one reaches maxBytes of JSON or maxRecords lines.
+ * A shard is written as .part and renamed when complete, so readers only ever
+ * see whole shards. Like LinkJsonWriter overwriting its file, a new writer
+ * replaces the shard set already in the directory: every run, including a
+ * resumed crawl that replays its completed pages, writes one complete set.
+ */
+public class LinkShardWriter implements LinkSink {
+    
+    public enum Compression {
+        NONE(""),
+        GZIP(".gz"),
+        // Needs com.github.luben:zstd-jni on the classpath
+        ZSTD(".zst");
+        
+        final String extension;
+        
+        Compression(String extension) {
+            this.extension = extension;
+        }
+        
+        OutputStream wrap(OutputStream out) throws IOException {
+            switch (this) {
+                case GZIP:
+                    return new GZIPOutputStream(out, BUFFER_SIZE);
+                case ZSTD:
+                    return zstd("com.github.luben.zstd.ZstdOutputStream", OutputStream.class, out);
+                default:
+                    return out;
+            }
+        }
+        
+        static InputStream unwrap(Path file, InputStream in) throws IOException {
+            String name = file.getFileName().toString();
+            if (name.endsWith(GZIP.extension)) {
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            if (name.endsWith(ZSTD.extension)) {
+                return zstd("com.github.luben.zstd.ZstdInputStream", InputStream.class, in);
+            }
+            return in;
+        }
+        
+        // zstd-jni is optional, so it is only reached through reflection
+        private static <T> T zstd(String className, Class<T> type, T stream) throws IOException {
+            try {
+                Constructor<?> constructor = Class.forName(className).getConstructor(type);
+                return type.cast(constructor.newInstance(stream));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("zstd compression needs com.github.luben:zstd-jni on the classpath");
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Could not create " + className, e);
+            }
+        }
+    }
+    
+    public static class Options {
+        public Compression compression = Compression.GZIP;
+        // Uncompressed JSON bytes per shard
+        public long maxBytes = 256L << 20;
+        public long maxRecords = 1_000_000;
+        public int queueCapacity = 10_000;
+    }
+    
+    static final Pattern SHARD_NAME = Pattern.compile("links-(\\d{5,})\\.jsonl(\\.gz|\\.zst)?");
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Object END = new Object();
+    
+    private final Path directory;
+    private final Options options;
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+    private volatile IOException failure;
+    
+    // Owned by the writer thread
+    private final StringWriter line = new StringWriter(1024);
+    private OutputStream shard;
+    private Path shardPart;
+    private int shardIndex;
+    private long shardBytes;
+    private long shardRecords;
+    private int shardsWritten;
+    private long bytesWritten;
+    private long recordsWritten;
+    
+    public LinkShardWriter(Path directory, Options options) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(options.queueCapacity);
+        deleteShards(directory);
+        this.writer = Thread.ofPlatform().name("link-shard-writer").start(this::drain);
+    }
+    
+    /**
+     * Queue one link as its own line; blocks while the queue is full
+     */
+    @Override
+    public void writeLink(FetchLinks.LinkInfo link) throws IOException {
+        enqueue(link);
+    }
+    
+    /**
+     * Queue one crawled page, written with its links as a single line
+     */
+    @Override
+    public void writePage(LinkCrawler.PageResult page) throws IOException {
+        enqueue(page);
+    }
+    
+    private void enqueue(Object record) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (!writer.isAlive()) {
+            throw new IOException("Shard writer is closed");
+        }
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing output", e);
+        }
+    }
+    
+    private void drain() {
+        try {
+            while (true) {
+                Object record = queue.take();
+                if (record == END) {
+                    break;
+                }
+                write(record);
+            }
+            finishShard();
+        } catch (IOException e) {
+            failure = e;
+            // Unblock producers waiting on a full queue; they will see the failure
+            queue.clear();
+        } catch (InterruptedException e) {
+            failure = new IOException("Shard writer interrupted", e);
+        } finally {
+            if (shard != null || failure != null) {
+                abandonShard();
+            }
+        }
+    }
+    
+    private void write(Object record) throws IOException {
+        line.getBuffer().setLength(0);
+        JsonWriter json = new JsonWriter(line);
+        json.setSerializeNulls(false);
+        if (record instanceof LinkCrawler.PageResult) {
+            LinkJsonWriter.writePageObject(json, (LinkCrawler.PageResult) record);
+        } else {
+            LinkJsonWriter.writeLinkObject(json, (FetchLinks.LinkInfo) record);
+        }
+        line.write('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        
+        if (shard != null && (shardBytes + bytes.length > options.maxBytes || shardRecords >= options.maxRecords)) {
+            finishShard();
+        }
+        if (shard == null) {
+            shardPart = directory.resolve(shardName(shardIndex) + ".part");
+            OutputStream file = new BufferedOutputStream(Files.newOutputStream(shardPart), BUFFER_SIZE);
+            try {
+                shard = options.compression.wrap(file);
+            } catch (IOException e) {
+                file.close();
+                Files.delete(shardPart);
+                throw e;
+            }
+            shardBytes = 0;
+            shardRecords = 0;
+        }
+        shard.write(bytes);
+        shardBytes += bytes.length;
+        shardRecords++;
+        recordsWritten++;
+    }
+    
+    private void finishShard() throws IOException {
+        if (shard == null) {
+            return;
+        }
+        shard.close();
+        shard = null;
+        Path complete = directory.resolve(shardName(shardIndex));
+        Files.move(shardPart, complete, StandardCopyOption.ATOMIC_MOVE);
+        bytesWritten += Files.size(complete);
+        shardIndex++;
+        shardsWritten++;
+    }
+    
+    private String shardName(int index) {
+        return String.format("links-%05d.jsonl%s", index, options.compression.extension);
+    }
+    
+    // Remove an earlier run's shards and any .part it left behind; other files are kept
+    private static void deleteShards(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (SHARD_NAME.matcher(name.endsWith(".part") ? name.substring(0, name.length() - 5) : name).matches()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+    
+    // After a failure: close the unfinished shard and drop its .part file
+    private void abandonShard() {
+        if (shard != null) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                System.err.println("Error closing unfinished shard " + shardPart + ": " + e.getMessage());
+            }
+            shard = null;
+        }
+        if (shardPart == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(shardPart);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + shardPart + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Number of complete shards written by this writer; final once close() returns
+     */
+    public int shardsWritten() {
+        return shardsWritten;
+    }
+    
+    /**
+     * Wait for queued records to be written and the last shard to be completed
+     */
+    @Override
+    public void close() throws IOException {
+        FetchLinksEvents.Write event = new FetchLinksEvents.Write();
+        event.begin();
+        try {
+            if (writer.isAlive() && failure == null) {
+                queue.put(END);
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing shards", e);
+        } finally {
+            // Still running only if we were interrupted; the writer then drops its unfinished shard
+            if (writer.isAlive()) {
+                writer.interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        event.path = directory.toString();
+        event.bytes = bytesWritten;
+        event.records = recordsWritten;
+        event.commit();
+    }
+}
@@ -0,0 +1,19 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for extracted links, written one link or one crawled page at a time
+ */
+public interface LinkSink extends Closeable {
+    
+    void writeLink(FetchLinks.LinkInfo link) throws IOException;
+    
+    void writePage(LinkCrawler.PageResult page) throws IOException;
+    
+    default void writeAll(List<FetchLinks.LinkInfo> links) throws IOException {
+        for (FetchLinks.LinkInfo link : links) {
+            writeLink(link);
+        }
+    }
+}
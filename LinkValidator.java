@@ -0,0 +1,317 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Checks the health of extracted hrefs concurrently.
+ * Identical hrefs are checked once. Each check sends HEAD and falls back to
+ * GET when the server rejects HEAD, follows redirects by hand to record the
+ * chain, and runs on its own virtual thread behind a per-host connection cap.
+ * Only status and headers are read: a GET body is abandoned unread, which
+ * cancels its download.
+ * The HttpClient prefers HTTP/2 so checks against one origin share a
+ * multiplexed connection where the server supports it.
+ * A Session checks hrefs as a crawl produces them and streams the report
+ * instead of collecting every href first.
+ */
+public class LinkValidator {
+    
+    public static class Options {
+        public int maxPerHost = 6;
+        public int maxRedirects = 10;
+        public Duration timeout = Duration.ofSeconds(15);
+        // Checks a Session lets run at once before offer() waits
+        public int maxPending = 256;
+    }
+    
+    public static class LinkStatus {
+        public String href;
+        // Counted by the batch methods only; a Session records foundOn instead
+        public Integer occurrences;
+        public String foundOn;
+        public int status;
+        public boolean ok;
+        public String method;
+        public long latencyMs;
+        public List<String> redirectChain = new ArrayList<>();
+        public String finalUrl;
+        public String error;
+    }
+    
+    // Statuses for which a HEAD answer is not trusted and GET is retried
+    private static final Set<Integer> HEAD_UNSUPPORTED = Set.of(400, 403, 404, 405, 501);
+    
+    private final Options options;
+    private final HttpClient client;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    
+    public LinkValidator(Options options) {
+        this(options, HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(options.timeout)
+            .build());
+    }
+    
+    public LinkValidator(Options options, HttpClient client) {
+        this.options = options;
+        this.client = client;
+    }
+    
+    /**
+     * Check every distinct href among the links and return one status per href
+     */
+    public List<LinkStatus> validate(Collection<FetchLinks.LinkInfo> links) throws InterruptedException {
+        List<String> hrefs = new ArrayList<>(links.size());
+        for (FetchLinks.LinkInfo link : links) {
+            hrefs.add(link.href);
+        }
+        return validateHrefs(hrefs);
+    }
+    
+    public List<LinkStatus> validateHrefs(Collection<String> hrefs) throws InterruptedException {
+        Map<String, Integer> occurrences = new LinkedHashMap<>();
+        for (String href : hrefs) {
+            occurrences.merge(href, 1, Integer::sum);
+        }
+        return validateCounts(occurrences);
+    }
+    
+    /**
+     * Check hrefs already deduplicated into href to occurrence count
+     */
+    public List<LinkStatus> validateCounts(Map<String, Integer> occurrences) throws InterruptedException {
+        List<Future<LinkStatus>> futures = new ArrayList<>(occurrences.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, Integer> entry : occurrences.entrySet()) {
+                futures.add(executor.submit(() -> check(entry.getKey(), entry.getValue())));
+            }
+            List<LinkStatus> statuses = new ArrayList<>(futures.size());
+            for (Future<LinkStatus> future : futures) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Link check failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Start a session that writes its report to the file as checks finish
+     */
+    public Session stream(Path report) throws IOException {
+        return new Session(report);
+    }
+    
+    /**
+     * Checks each distinct href once as it is offered and appends its status to the
+     * report when the check finishes. Offered hrefs are remembered in an off-heap set
+     * and at most maxPending checks are outstanding, so heap use stays flat however
+     * many links a crawl produces.
+     */
+    public class Session implements Closeable {
+        
+        private final OffHeapUrlSet seen = new OffHeapUrlSet(1 << 16);
+        private final Semaphore pending = new Semaphore(options.maxPending);
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        private final JsonWriter report;
+        private long checked;
+        private long broken;
+        private IOException failure;
+        private boolean closed;
+        
+        private Session(Path file) throws IOException {
+            report = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+            report.setIndent("  ");
+            report.beginArray();
+        }
+        
+        /**
+         * Check the href unless it was offered before; waits while maxPending checks are outstanding
+         */
+        public synchronized void offer(String href, String foundOn) {
+            byte[] bytes = href.getBytes(StandardCharsets.UTF_8);
+            if (!seen.add(bytes, OffHeapBloomFilter.Hashing.hash64(bytes, 0))) {
+                return;
+            }
+            pending.acquireUninterruptibly();
+            executor.submit(() -> {
+                try {
+                    LinkStatus status = check(href, null);
+                    status.foundOn = foundOn;
+                    record(status);
+                } finally {
+                    pending.release();
+                }
+                return null;
+            });
+        }
+        
+        private void record(LinkStatus status) {
+            synchronized (report) {
+                checked++;
+                if (!status.ok) {
+                    broken++;
+                }
+                if (failure == null) {
+                    try {
+                        gson.toJson(status, LinkStatus.class, report);
+                    } catch (JsonIOException e) {
+                        failure = e.getCause() instanceof IOException io ? io : new IOException(e);
+                    }
+                }
+            }
+        }
+        
+        public long checked() {
+            synchronized (report) {
+                return checked;
+            }
+        }
+        
+        public long broken() {
+            synchronized (report) {
+                return broken;
+            }
+        }
+        
+        /**
+         * Wait for the outstanding checks and finish the report
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            executor.close();
+            synchronized (report) {
+                try {
+                    if (failure == null) {
+                        report.endArray();
+                    }
+                } finally {
+                    report.close();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+    
+    private LinkStatus check(String href, Integer occurrences) throws InterruptedException {
+        LinkStatus status = new LinkStatus();
+        status.href = href;
+        status.occurrences = occurrences;
+        
+        URI uri;
+        try {
+            uri = URI.create(href);
+        } catch (IllegalArgumentException e) {
+            status.error = "invalid URL";
+            return status;
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https")) || uri.getHost() == null) {
+            status.method = "SKIP";
+            status.ok = true;
+            status.error = "not an http(s) link";
+            return status;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            status.method = "HEAD";
+            int code = follow(uri, "HEAD", status);
+            if (HEAD_UNSUPPORTED.contains(code)) {
+                status.method = "GET";
+                status.redirectChain.clear();
+                code = follow(uri, "GET", status);
+            }
+            status.status = code;
+            status.ok = code >= 200 && code < 400;
+        } catch (IOException | IllegalArgumentException e) {
+            status.error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        }
+        status.latencyMs = (System.nanoTime() - start) / 1_000_000;
+        return status;
+    }
+    
+    /**
+     * Send the request and follow redirects, recording each hop; returns the final status code
+     */
+    private int follow(URI uri, String method, LinkStatus status) throws IOException, InterruptedException {
+        URI current = uri;
+        for (int hop = 0; ; hop++) {
+            HttpResponse<InputStream> response = send(current, method);
+            int code = response.statusCode();
+            Optional<String> location = response.headers().firstValue("Location");
+            if (code < 300 || code >= 400 || location.isEmpty()) {
+                status.finalUrl = current.toString();
+                return code;
+            }
+            status.redirectChain.add(code + " " + current);
+            if (hop >= options.maxRedirects) {
+                throw new IOException("more than " + options.maxRedirects + " redirects");
+            }
+            current = current.resolve(location.get().trim().replace(" ", "%20"));
+        }
+    }
+    
+    private HttpResponse<InputStream> send(URI uri, String method) throws IOException, InterruptedException {
+        Semaphore permits = hostPermits.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(),
+            host -> new Semaphore(options.maxPerHost));
+        permits.acquire();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(options.timeout)
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            // Closing the body before reading it cancels the transfer instead of downloading it to discard
+            response.body().close();
+            return response;
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Report file written next to the links file: links.json becomes links-health.json
+     */
+    public static Path reportPathFor(Path linksFile) {
+        String name = linksFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String report = (dot > 0 ? name.substring(0, dot) : name) + "-health.json";
+        return linksFile.resolveSibling(report);
+    }
+    
+    public static void writeReport(List<LinkStatus> statuses, Path file) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            gson.toJson(statuses, writer);
+        }
+    }
+}
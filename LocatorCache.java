@@ -0,0 +1,194 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.openqa.selenium.By;
+
+/**
+ * Bounded cache for locators built from a template and one argument, such as
+ * getSpanByText("Lead Status"). Parallel suites ask for the same few hundred labels
+ * over and over, so the factories hand back a shared By instead of concatenating a
+ * new XPath and allocating a new By each time.
+ *
+ * Entries are spread over lock-striped LRU maps; each stripe holds maxSize / stripes
+ * entries and evicts its least recently used one when full. A hit allocates nothing:
+ * the lookup reuses the stripe's probe key while it holds the stripe lock.
+ */
+public final class LocatorCache {
+    
+    public static final int DEFAULT_MAX_SIZE = 4096;
+    public static final int DEFAULT_STRIPES = 16;
+    
+    /** Shared by all locator factory methods; size with -Dlocator.cache.size */
+    public static final LocatorCache SHARED =
+        new LocatorCache(Integer.getInteger("locator.cache.size", DEFAULT_MAX_SIZE), DEFAULT_STRIPES);
+    
+    /**
+     * A locator factory; keys compare templates by identity, so keep each one in a static final
+     */
+    public static final class Template {
+        private final String name;
+        private final Function<String, By> factory;
+        
+        private Template(String name, Function<String, By> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+        
+        public String name() {
+            return name;
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    public static Template template(String name, Function<String, By> factory) {
+        return new Template(name, factory);
+    }
+    
+    private static final class Key {
+        Template template;
+        String argument;
+        int hash;
+        
+        Key set(Template template, String argument, int hash) {
+            this.template = template;
+            this.argument = argument;
+            this.hash = hash;
+            return this;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return template == key.template && Objects.equals(argument, key.argument);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    private static final class Stripe {
+        // Access-ordered, so iteration starts at the least recently used entry
+        final LinkedHashMap<Key, By> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final Key probe = new Key();
+        final int capacity;
+        long evictions;
+        
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        By putIfAbsent(Key key, By value) {
+            By existing = entries.putIfAbsent(key, value);
+            if (existing == null && entries.size() > capacity) {
+                Iterator<Key> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+            return existing;
+        }
+    }
+    
+    private final Stripe[] stripes;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public LocatorCache(int maxSize, int stripeCount) {
+        if (maxSize < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("maxSize and stripes must be positive: " + maxSize + ", " + stripeCount);
+        }
+        int count = Integer.highestOneBit(Math.min(stripeCount, maxSize));
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        int perStripe = (maxSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+    
+    /**
+     * Cached locator for the template and argument, built with the template's factory on a miss
+     */
+    public By get(Template template, String argument) {
+        int hash = System.identityHashCode(template) * 31 + Objects.hashCode(argument);
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        synchronized (stripe) {
+            By cached = stripe.entries.get(stripe.probe.set(template, argument, hash));
+            stripe.probe.set(null, null, 0);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        // build outside the lock; if two threads race, the first one stored wins
+        By built = template.factory.apply(argument);
+        synchronized (stripe) {
+            By raced = stripe.putIfAbsent(new Key().set(template, argument, hash), built);
+            return raced != null ? raced : built;
+        }
+    }
+    
+    public long hits() {
+        return hits.sum();
+    }
+    
+    public long misses() {
+        return misses.sum();
+    }
+    
+    public long evictions() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.evictions;
+            }
+        }
+        return total;
+    }
+    
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.entries.size();
+            }
+        }
+        return total;
+    }
+    
+    public double hitRate() {
+        long h = hits();
+        long total = h + misses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+    
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+                stripe.evictions = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("LocatorCache[size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+            size(), hits(), misses(), evictions(), hitRate() * 100);
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * A locator that tries alternates for the same element in turn, e.g. an absolute
+ * XPath and a CSS selector. Each chain counts how often each alternate finds the
+ * element and keeps the alternates ordered by success rate, so the one that works
+ * is tried first and the ones that do not stop costing an implicit-wait timeout.
+ *
+ * An alternate only counts as failed when a later alternate found the element; when
+ * none match (the element is simply absent) nothing is recorded. Statistics are kept
+ * per chain name and alternate and can be persisted between runs with
+ * loadStatistics/saveStatistics, or automatically with -Dlocator.stats=file.
+ */
+public final class LocatorChain extends By {
+    
+    // counts are halved once an alternate has this many, so a page change is picked up in a few hundred lookups
+    static final long DECAY_AFTER = 1000;
+    
+    private static final Map<String, LocatorChain> CHAINS = new ConcurrentHashMap<>();
+    // counts read from disk, including those for chains this run has not created (yet)
+    private static final Properties SAVED = new Properties();
+    
+    static {
+        String file = System.getProperty("locator.stats");
+        if (file != null) {
+            Path path = Path.of(file);
+            try {
+                loadStatistics(path);
+            } catch (IOException e) {
+                System.err.println("Could not load locator statistics from " + path + ": " + e.getMessage());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    saveStatistics(path);
+                } catch (IOException e) {
+                    System.err.println("Could not save locator statistics to " + path + ": " + e.getMessage());
+                }
+            }, "locator-stats"));
+        }
+    }
+    
+    private static final class Alternate {
+        final int declared;
+        final By by;
+        final String key;
+        long successes;
+        long failures;
+        
+        Alternate(int declared, By by, String key) {
+            this.declared = declared;
+            this.by = by;
+            this.key = key;
+        }
+        
+        // Laplace-smoothed, so an alternate that has never been tried sits at 0.5
+        double score() {
+            return (successes + 1.0) / (successes + failures + 2.0);
+        }
+    }
+    
+    private final String name;
+    private final Alternate[] alternates;
+    private volatile Alternate[] order;
+    
+    private LocatorChain(String name, By[] alternates) {
+        this.name = name;
+        this.alternates = new Alternate[alternates.length];
+        for (int i = 0; i < alternates.length; i++) {
+            this.alternates[i] = new Alternate(i, alternates[i], name + " | " + alternates[i]);
+        }
+        this.order = this.alternates.clone();
+    }
+    
+    /**
+     * Chain of alternates for one element, first declared first until statistics say otherwise.
+     * The name identifies the chain in the statistics file, so keep it stable across runs.
+     */
+    public static LocatorChain of(String name, By... alternates) {
+        if (alternates.length == 0) {
+            throw new IllegalArgumentException("Locator chain " + name + " needs at least one alternate");
+        }
+        LocatorChain chain = new LocatorChain(name, alternates);
+        synchronized (SAVED) {
+            chain.restore(SAVED);
+        }
+        CHAINS.put(name, chain);
+        return chain;
+    }
+    
+    public String name() {
+        return name;
+    }
+    
+    /**
+     * Alternates in the order they are currently tried
+     */
+    public List<By> alternates() {
+        Alternate[] current = order;
+        List<By> result = new ArrayList<>(current.length);
+        for (Alternate alternate : current) {
+            result.add(alternate.by);
+        }
+        return result;
+    }
+    
+    @Override
+    public List<WebElement> findElements(SearchContext context) {
+        Alternate[] current = order;
+        for (int i = 0; i < current.length; i++) {
+            List<WebElement> found;
+            try {
+                found = current[i].by.findElements(context);
+            } catch (InvalidSelectorException e) {
+                // a selector the page rejects counts as a miss, the next alternate may still work;
+                // anything else (a dead session, say) is not this alternate's fault and propagates
+                found = List.of();
+            }
+            if (!found.isEmpty()) {
+                record(current, i);
+                return found;
+            }
+        }
+        return List.of();
+    }
+    
+    // current[winner] matched after current[0..winner) did not
+    private synchronized void record(Alternate[] current, int winner) {
+        for (int i = 0; i < winner; i++) {
+            current[i].failures++;
+        }
+        current[winner].successes++;
+        if (current[winner].successes + current[winner].failures > DECAY_AFTER) {
+            for (Alternate alternate : alternates) {
+                alternate.successes /= 2;
+                alternate.failures /= 2;
+            }
+        }
+        if (winner > 0) {
+            reorder();
+        }
+    }
+    
+    private synchronized void reorder() {
+        Alternate[] sorted = alternates.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble((Alternate a) -> -a.score()).thenComparingInt(a -> a.declared));
+        order = sorted;
+    }
+    
+    private synchronized void restore(Properties saved) {
+        for (Alternate alternate : alternates) {
+            alternate.successes = count(saved, alternate.key + ".successes");
+            alternate.failures = count(saved, alternate.key + ".failures");
+        }
+        reorder();
+    }
+    
+    /**
+     * A saved count, or 0 with a warning when the entry is not a non-negative number; the bad
+     * entry is dropped so it is reported once and replaced on the next save
+     */
+    private static long count(Properties saved, String key) {
+        String value = saved.getProperty(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            long count = Long.parseLong(value.trim());
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Ignoring bad locator statistic " + key + "=" + value);
+        saved.remove(key);
+        return 0;
+    }
+    
+    private synchronized void store(Properties saved) {
+        for (Alternate alternate : alternates) {
+            saved.setProperty(alternate.key + ".successes", Long.toString(alternate.successes));
+            saved.setProperty(alternate.key + ".failures", Long.toString(alternate.failures));
+        }
+    }
+    
+    /**
+     * Load counts saved by an earlier run and reorder the chains created so far; a missing file is ignored
+     */
+    public static void loadStatistics(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties loaded = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            loaded.load(reader);
+        }
+        synchronized (SAVED) {
+            SAVED.putAll(loaded);
+            for (LocatorChain chain : CHAINS.values()) {
+                chain.restore(SAVED);
+            }
+        }
+    }
+    
+    /**
+     * Write the counts of every chain, keeping loaded entries for chains not used this run
+     */
+    public static void saveStatistics(Path file) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        synchronized (SAVED) {
+            for (LocatorChain chain : CHAINS.values()) {
+                chain.store(SAVED);
+            }
+            try (Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                SAVED.store(writer, "LocatorChain success/failure counts");
+            }
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * One line per alternate in try order: successes, failures and score
+     */
+    public synchronized String statistics() {
+        StringBuilder sb = new StringBuilder(name);
+        for (Alternate alternate : order) {
+            sb.append(String.format("%n  %-60s ok=%d miss=%d score=%.2f",
+                alternate.by, alternate.successes, alternate.failures, alternate.score()));
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return "LocatorChain " + name + ": " + alternates();
+    }
+}
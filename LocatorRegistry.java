@@ -0,0 +1,176 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import org.openqa.selenium.By;
+
+/**
+ * Index of every By constant in the Salesforce locator classes, built once at class init.
+ * Each locator is registered under page / section / name: the page is the locator class
+ * (SalesforceDetailsTabLocators), the section is the nested class (Buttons) or, for
+ * top-level constants, the name prefix (txt, btn, input, link), and the name is the
+ * constant itself (CANCEL_BUTTON). Lookups return the same By instances the constants
+ * hold. Label-based locators from getLocatorByLabel are served from LocatorCache so
+ * repeat lookups neither build XPath strings nor allocate.
+ */
+public final class LocatorRegistry {
+    
+    /**
+     * One registered locator and where it was declared
+     */
+    public static final class Entry {
+        public final String page;
+        public final String section;
+        public final String name;
+        public final By by;
+        
+        Entry(String page, String section, String name, By by) {
+            this.page = page;
+            this.section = section;
+            this.name = name;
+            this.by = by;
+        }
+        
+        public String path() {
+            return page + "/" + section + "/" + name;
+        }
+        
+        @Override
+        public String toString() {
+            return path() + " = " + by;
+        }
+    }
+    
+    private static final List<Class<?>> LOCATOR_CLASSES = List.of(
+        SalesforceDetailsTabLocators.class,
+        SalesforceLeadDetailsFields.class,
+        SalesforceLeadLocators.class);
+    
+    private static final Map<String, Entry> BY_PATH;
+    private static final Map<String, List<Entry>> BY_NAME;
+    private static final List<Entry> ENTRIES;
+    
+    static {
+        Map<String, Entry> byPath = new LinkedHashMap<>();
+        for (Class<?> page : LOCATOR_CLASSES) {
+            index(page.getSimpleName(), page, null, byPath);
+        }
+        Map<String, List<Entry>> byName = new HashMap<>();
+        for (Entry entry : byPath.values()) {
+            byName.computeIfAbsent(entry.name, name -> new ArrayList<>()).add(entry);
+        }
+        byName.replaceAll((name, entries) -> List.copyOf(entries));
+        BY_PATH = Map.copyOf(byPath);
+        BY_NAME = Map.copyOf(byName);
+        ENTRIES = List.copyOf(byPath.values());
+    }
+    
+    private static final LocatorCache.Template BUTTON_LABEL = LocatorCache.template("label/button",
+        label -> By.xpath("//button[contains(text(), '" + label + "')]"));
+    private static final LocatorCache.Template LINK_LABEL = LocatorCache.template("label/link", By::linkText);
+    private static final LocatorCache.Template INPUT_LABEL = LocatorCache.template("label/input",
+        label -> By.xpath("//input[@placeholder='" + label + "' or @aria-label='" + label + "']"));
+    
+    private LocatorRegistry() {
+    }
+    
+    private static void index(String page, Class<?> type, String section, Map<String, Entry> byPath) {
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) || !Modifier.isPublic(modifiers) || !By.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            String name = field.getName();
+            Entry entry = new Entry(page, section != null ? section : prefixOf(name), name, read(field));
+            byPath.put(entry.path(), entry);
+        }
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            if (Modifier.isPublic(nested.getModifiers())) {
+                index(page, nested, nested.getSimpleName(), byPath);
+            }
+        }
+    }
+    
+    // txt_Name -> txt; constants without a lowercase prefix fall into the "" section
+    private static String prefixOf(String name) {
+        int underscore = name.indexOf('_');
+        if (underscore > 0 && Character.isLowerCase(name.charAt(0))) {
+            return name.substring(0, underscore);
+        }
+        return "";
+    }
+    
+    private static By read(Field field) {
+        try {
+            return (By) field.get(null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read locator " + field, e);
+        }
+    }
+    
+    /**
+     * Locator registered under page, section and name, or null if there is none
+     */
+    public static By get(String page, String section, String name) {
+        return get(page + "/" + section + "/" + name);
+    }
+    
+    /**
+     * Locator by "page/section/name" path, e.g. "SalesforceDetailsTabLocators/Buttons/CANCEL_BUTTON"
+     */
+    public static By get(String path) {
+        Entry entry = BY_PATH.get(path);
+        return entry == null ? null : entry.by;
+    }
+    
+    /**
+     * Every locator with the given constant name, across pages and sections
+     */
+    public static List<Entry> find(String name) {
+        return BY_NAME.getOrDefault(name, List.of());
+    }
+    
+    /**
+     * The only locator with the given constant name; fails if the name is missing or ambiguous
+     */
+    public static By require(String name) {
+        List<Entry> entries = find(name);
+        if (entries.size() != 1) {
+            throw new NoSuchElementException(entries.isEmpty()
+                ? "No locator named " + name
+                : "Locator name " + name + " is ambiguous: " + entries);
+        }
+        return entries.get(0).by;
+    }
+    
+    public static List<Entry> entries() {
+        return ENTRIES;
+    }
+    
+    public static int size() {
+        return ENTRIES.size();
+    }
+    
+    /**
+     * Cached form of SalesforceDetailsTabLocators.getLocatorByLabel; returns null for unknown element types
+     */
+    public static By byLabel(String elementType, String label) {
+        if (elementType.equalsIgnoreCase("BUTTON")) {
+            return LocatorCache.SHARED.get(BUTTON_LABEL, label);
+        }
+        if (elementType.equalsIgnoreCase("LINK")) {
+            return LocatorCache.SHARED.get(LINK_LABEL, label);
+        }
+        if (elementType.equalsIgnoreCase("INPUT")) {
+            return LocatorCache.SHARED.get(INPUT_LABEL, label);
+        }
+        return null;
+    }
+    
+    public static void main(String[] args) {
+        for (Entry entry : ENTRIES) {
+            System.out.println(entry);
+        }
+        System.out.println(ENTRIES.size() + " locators");
+        System.out.println(LocatorCache.SHARED);
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size file mapped into memory as an array of bytes, ints or longs.
+ * The file is mapped in 1 GB chunks so arrays larger than a single
+ * MappedByteBuffer can address still work; chunk boundaries are 8-byte
+ * aligned, so no int or long straddles two chunks.
+ */
+final class MappedArray implements Closeable {
+    
+    private static final long CHUNK_BYTES = 1L << 30;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long length;
+    
+    private MappedArray(FileChannel channel, long length, FileChannel.MapMode mode) throws IOException {
+        this.channel = channel;
+        this.length = length;
+        int count = (int) Math.max(1, (length + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        this.chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * CHUNK_BYTES;
+            chunks[i] = channel.map(mode, start, Math.min(CHUNK_BYTES, length - start));
+        }
+    }
+    
+    /**
+     * Create (or truncate) a file of the given size and map it read-write
+     */
+    static MappedArray create(Path file, long bytes) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (bytes > 0) {
+            channel.truncate(bytes);
+            channel.position(bytes - 1);
+            channel.write(ByteBuffer.wrap(new byte[1]));
+        }
+        return new MappedArray(channel, bytes, FileChannel.MapMode.READ_WRITE);
+    }
+    
+    static MappedArray openReadOnly(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new MappedArray(channel, channel.size(), FileChannel.MapMode.READ_ONLY);
+    }
+    
+    long byteLength() {
+        return length;
+    }
+    
+    byte getByte(long index) {
+        return chunks[(int) (index / CHUNK_BYTES)].get((int) (index % CHUNK_BYTES));
+    }
+    
+    void putByte(long index, byte value) {
+        chunks[(int) (index / CHUNK_BYTES)].put((int) (index % CHUNK_BYTES), value);
+    }
+    
+    int getInt(long index) {
+        long offset = index * 4;
+        return chunks[(int) (offset / CHUNK_BYTES)].getInt((int) (offset % CHUNK_BYTES));
+    }
+    
+    void putInt(long index, int value) {
+        long offset = index * 4;
+        chunks[(int) (offset / CHUNK_BYTES)].putInt((int) (offset % CHUNK_BYTES), value);
+    }
+    
+    long getLong(long index) {
+        long offset = index * 8;
+        return chunks[(int) (offset / CHUNK_BYTES)].getLong((int) (offset % CHUNK_BYTES));
+    }
+    
+    void putLong(long index, long value) {
+        long offset = index * 8;
+        chunks[(int) (offset / CHUNK_BYTES)].putLong((int) (offset % CHUNK_BYTES), value);
+    }
+    
+    /**
+     * Copy a byte range out of the mapping
+     */
+    byte[] getBytes(long offset, int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = getByte(offset + i);
+        }
+        return bytes;
+    }
+    
+    void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,144 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter whose bit array lives in direct ByteBuffers outside the Java heap.
+ * Sized from the expected number of insertions and the target false-positive
+ * rate; bits are split across chunks so filters larger than 2 GB still work.
+ */
+public class OffHeapBloomFilter {
+    
+    private static final int CHUNK_BYTES = 1 << 30;
+    
+    private final ByteBuffer[] chunks;
+    private final long bitCount;
+    private final int hashCount;
+    
+    public OffHeapBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        
+        long bytes = bitCount / 8;
+        int chunkCount = (int) ((bytes + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = ByteBuffer.allocateDirect((int) Math.min(CHUNK_BYTES, bytes - (long) i * CHUNK_BYTES));
+        }
+    }
+    
+    public boolean mightContain(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return mightContain(Hashing.hash64(bytes, 0), Hashing.hash64(bytes, 0x9E3779B97F4A7C15L));
+    }
+    
+    /**
+     * Add the value; returns true if it was definitely not present before
+     */
+    public boolean put(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return put(Hashing.hash64(bytes, 0), Hashing.hash64(bytes, 0x9E3779B97F4A7C15L));
+    }
+    
+    boolean mightContain(long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            if (!getBit(index(h1, h2, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    boolean put(long h1, long h2) {
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            changed |= setBit(index(h1, h2, i));
+        }
+        return changed;
+    }
+    
+    public long bitCount() {
+        return bitCount;
+    }
+    
+    public int hashCount() {
+        return hashCount;
+    }
+    
+    // Kirsch-Mitzenmacher double hashing
+    private long index(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+    
+    private boolean getBit(long bit) {
+        long byteIndex = bit >>> 3;
+        ByteBuffer chunk = chunks[(int) (byteIndex / CHUNK_BYTES)];
+        return (chunk.get((int) (byteIndex % CHUNK_BYTES)) & (1 << (bit & 7))) != 0;
+    }
+    
+    private boolean setBit(long bit) {
+        long byteIndex = bit >>> 3;
+        ByteBuffer chunk = chunks[(int) (byteIndex / CHUNK_BYTES)];
+        int offset = (int) (byteIndex % CHUNK_BYTES);
+        byte current = chunk.get(offset);
+        byte updated = (byte) (current | (1 << (bit & 7)));
+        if (current == updated) {
+            return false;
+        }
+        chunk.put(offset, updated);
+        return true;
+    }
+    
+    /**
+     * 64-bit MurmurHash3-style hashing shared by the frontier structures
+     */
+    static final class Hashing {
+        
+        private Hashing() {
+        }
+        
+        static long hash64(byte[] data, long seed) {
+            final long c1 = 0x87c37b91114253d5L;
+            final long c2 = 0x4cf5ad432745937fL;
+            long h = seed ^ (data.length * c1);
+            int i = 0;
+            for (; i + 8 <= data.length; i += 8) {
+                long k = (data[i] & 0xffL)
+                    | (data[i + 1] & 0xffL) << 8
+                    | (data[i + 2] & 0xffL) << 16
+                    | (data[i + 3] & 0xffL) << 24
+                    | (data[i + 4] & 0xffL) << 32
+                    | (data[i + 5] & 0xffL) << 40
+                    | (data[i + 6] & 0xffL) << 48
+                    | (data[i + 7] & 0xffL) << 56;
+                k *= c1;
+                k = Long.rotateLeft(k, 31);
+                k *= c2;
+                h ^= k;
+                h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+            }
+            long tail = 0;
+            for (int shift = 0; i < data.length; i++, shift += 8) {
+                tail |= (data[i] & 0xffL) << shift;
+            }
+            h ^= tail * c2;
+            return fmix64(h);
+        }
+        
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exact set of URLs stored entirely in direct memory.
+ * An open-addressing table of (hash, address) slots points into an
+ * append-only arena of length-prefixed UTF-8 bytes, so neither the table
+ * nor the strings occupy heap. Growing the table only rehashes slots; the
+ * arena is never moved.
+ */
+public class OffHeapUrlSet {
+    
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final int ARENA_CHUNK_BYTES = 64 * 1024 * 1024;
+    private static final int MIN_ARENA_CHUNK_BYTES = 64 * 1024;
+    // Typical URL length plus the length prefix, for sizing the first arena chunk
+    private static final int EXPECTED_URL_BYTES = 64;
+    private static final double MAX_LOAD = 0.7;
+    
+    private ByteBuffer table;
+    private int capacity;
+    private long size;
+    
+    private final List<ByteBuffer> arena = new ArrayList<>();
+    private ByteBuffer currentChunk;
+    private int nextChunkBytes;
+    
+    public OffHeapUrlSet(long expectedSize) {
+        int initial = 1024;
+        while (initial < MAX_CAPACITY && initial * MAX_LOAD < expectedSize) {
+            initial <<= 1;
+        }
+        this.capacity = initial;
+        this.table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        // Small sets start with a small arena; chunks double up to ARENA_CHUNK_BYTES as the set fills
+        this.nextChunkBytes = (int) Math.max(MIN_ARENA_CHUNK_BYTES,
+            Math.min(ARENA_CHUNK_BYTES, expectedSize * EXPECTED_URL_BYTES));
+    }
+    
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * Add the UTF-8 encoded URL with its precomputed 64-bit hash; returns false if already present
+     */
+    public boolean add(byte[] url, long hash) {
+        return add(url, hash, false);
+    }
+    
+    /**
+     * Add a URL the caller knows is absent (e.g. a Bloom filter miss), skipping byte comparisons
+     */
+    public void insertAbsent(byte[] url, long hash) {
+        add(url, hash, true);
+    }
+    
+    private boolean add(byte[] url, long hash, boolean knownAbsent) {
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        int mask = capacity - 1;
+        int slot = (int) (hash & mask);
+        while (true) {
+            int offset = slot * SLOT_BYTES;
+            long address = table.getLong(offset + 8);
+            if (address == 0) {
+                table.putLong(offset, hash);
+                table.putLong(offset + 8, append(url));
+                size++;
+                return true;
+            }
+            if (!knownAbsent && table.getLong(offset) == hash && matches(address, url)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    public boolean contains(byte[] url, long hash) {
+        int mask = capacity - 1;
+        int slot = (int) (hash & mask);
+        while (true) {
+            int offset = slot * SLOT_BYTES;
+            long address = table.getLong(offset + 8);
+            if (address == 0) {
+                return false;
+            }
+            if (table.getLong(offset) == hash && matches(address, url)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("URL set is full at " + size + " entries");
+        }
+        int newCapacity = capacity << 1;
+        ByteBuffer newTable = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            long address = table.getLong(i * SLOT_BYTES + 8);
+            if (address == 0) {
+                continue;
+            }
+            long hash = table.getLong(i * SLOT_BYTES);
+            int slot = (int) (hash & mask);
+            while (newTable.getLong(slot * SLOT_BYTES + 8) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable.putLong(slot * SLOT_BYTES, hash);
+            newTable.putLong(slot * SLOT_BYTES + 8, address);
+        }
+        table = newTable;
+        capacity = newCapacity;
+    }
+    
+    /**
+     * Copy the bytes into the arena and return a non-zero address: chunk index in the
+     * high word, offset plus one in the low word
+     */
+    private long append(byte[] url) {
+        int needed = 4 + url.length;
+        if (needed > ARENA_CHUNK_BYTES) {
+            throw new IllegalArgumentException("URL too long: " + url.length + " bytes");
+        }
+        if (currentChunk == null || currentChunk.remaining() < needed) {
+            currentChunk = ByteBuffer.allocateDirect(Math.max(nextChunkBytes, needed));
+            arena.add(currentChunk);
+            nextChunkBytes = (int) Math.min(ARENA_CHUNK_BYTES, nextChunkBytes * 2L);
+        }
+        int position = currentChunk.position();
+        currentChunk.putInt(url.length);
+        currentChunk.put(url);
+        return ((long) (arena.size() - 1) << 32) | (position + 1L);
+    }
+    
+    private boolean matches(long address, byte[] url) {
+        ByteBuffer chunk = arena.get((int) (address >>> 32));
+        int position = (int) (address & 0xffffffffL) - 1;
+        if (chunk.getInt(position) != url.length) {
+            return false;
+        }
+        int start = position + 4;
+        for (int i = 0; i < url.length; i++) {
+            if (chunk.get(start + i) != url[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+import com.microsoft.playwright.*;
+import com.microsoft.playwright.options.*;
+import java.util.Map;
+
+/**
+ * Event-driven replacement for the fixed wait after opening the menu.
+ * Waits until the page signals it is ready, according to the configured
+ * strategy, and reports how long that took.
+ */
+public class PageReadiness {
+    
+    public enum Strategy {
+        // No DOM mutations and no running animations for the quiet window
+        DOM_QUIET,
+        // The toggle reports aria-expanded="true"
+        ARIA_EXPANDED,
+        // No network connections for 500 ms (Playwright's networkidle)
+        NETWORK_IDLE,
+        // The previous behaviour: sleep for fixedMs
+        FIXED
+    }
+    
+    public static class Config {
+        public Strategy strategy = Strategy.DOM_QUIET;
+        public long quietWindowMs = 150;
+        public long timeoutMs = 5_000;
+        public long fixedMs = 1_000;
+        // DOM_QUIET stops listening to mutations after this many have restarted the quiet window
+        public int maxMutationRearms = 30;
+        public boolean log = true;
+        
+        public static Config parse(String strategy) {
+            Config config = new Config();
+            config.strategy = Strategy.valueOf(strategy.toUpperCase().replace('-', '_'));
+            return config;
+        }
+    }
+    
+    // Resolves once the document has gone quietWindow ms without a mutation and with no
+    // running finite CSS animation or transition, or when the timeout elapses. Infinite
+    // animations (spinners, carousels) are ignored, and after maxRearms mutation batches
+    // the observer is dropped so a continuously changing page still settles.
+    private static final String DOM_QUIET_SCRIPT = "({ quiet, timeout, maxRearms }) => new Promise(resolve => {" +
+        "  const start = performance.now();" +
+        "  let timer;" +
+        "  let finished = false;" +
+        "  let rearms = 0;" +
+        "  const observer = new MutationObserver(() => {" +
+        "    if (++rearms > maxRearms) {" +
+        "      observer.disconnect();" +
+        "      return;" +
+        "    }" +
+        "    arm();" +
+        "  });" +
+        "  function arm() {" +
+        "    clearTimeout(timer);" +
+        "    timer = setTimeout(settle, quiet);" +
+        "  }" +
+        "  function settle() {" +
+        "    const running = document.getAnimations ? document.getAnimations().filter(a => a.playState === 'running'" +
+        "      && a.effect && isFinite(a.effect.getComputedTiming().endTime)) : [];" +
+        "    if (running.length) {" +
+        "      Promise.all(running.map(a => a.finished.catch(() => null))).then(arm);" +
+        "      return;" +
+        "    }" +
+        "    done(false);" +
+        "  }" +
+        "  function done(timedOut) {" +
+        "    if (finished) return;" +
+        "    finished = true;" +
+        "    observer.disconnect();" +
+        "    clearTimeout(timer);" +
+        "    clearTimeout(limit);" +
+        "    resolve({ waited: performance.now() - start, timedOut: timedOut });" +
+        "  }" +
+        "  observer.observe(document.documentElement, { subtree: true, childList: true, attributes: true, characterData: true });" +
+        "  const limit = setTimeout(() => done(true), timeout);" +
+        "  arm();" +
+        "})";
+    
+    private PageReadiness() {
+    }
+    
+    /**
+     * Block until the page is ready after the toggle was clicked; returns the measured wait in ms
+     */
+    public static long await(Page page, String toggleSelector, Config config) {
+        FetchLinksEvents.Wait event = new FetchLinksEvents.Wait();
+        event.begin();
+        long start = System.nanoTime();
+        boolean timedOut = false;
+        try {
+            switch (config.strategy) {
+                case DOM_QUIET:
+                    Object result = page.evaluate(DOM_QUIET_SCRIPT, Map.of(
+                        "quiet", config.quietWindowMs, "timeout", config.timeoutMs,
+                        "maxRearms", config.maxMutationRearms));
+                    timedOut = result instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) result).get("timedOut"));
+                    break;
+                case ARIA_EXPANDED:
+                    page.waitForSelector(toggleSelector + "[aria-expanded=\"true\"]",
+                        new Page.WaitForSelectorOptions()
+                            .setState(WaitForSelectorState.ATTACHED)
+                            .setTimeout(config.timeoutMs));
+                    break;
+                case NETWORK_IDLE:
+                    page.waitForLoadState(LoadState.NETWORKIDLE,
+                        new Page.WaitForLoadStateOptions().setTimeout(config.timeoutMs));
+                    break;
+                default:
+                    page.waitForTimeout(config.fixedMs);
+            }
+        } catch (TimeoutError e) {
+            timedOut = true;
+        }
+        if (timedOut) {
+            event.timedOut = true;
+            System.err.println("Readiness (" + config.strategy + ") timed out after " + config.timeoutMs
+                + " ms on " + page.url() + "; extracting anyway");
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = page.url();
+            event.strategy = config.strategy.name();
+            event.commit();
+        }
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+        if (config.log) {
+            System.out.println("Menu ready after " + waitedMs + " ms (" + config.strategy
+                + ", fixed wait was " + config.fixedMs + " ms) on " + page.url());
+        }
+        return waitedMs;
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs page tasks on virtual threads, one thread per task.
+ * A semaphore caps how many tasks hold a Playwright page at once, so queued
+ * tasks cost a parked virtual thread instead of a platform thread.
+ */
+public class PageScheduler implements AutoCloseable {
+    
+    /**
+     * Point-in-time view of scheduler throughput and backlog
+     */
+    public static class Stats {
+        public final long completed;
+        public final long failed;
+        public final int queueDepth;
+        public final int inFlight;
+        public final double pagesPerSecond;
+        
+        Stats(long completed, long failed, int queueDepth, int inFlight, double pagesPerSecond) {
+            this.completed = completed;
+            this.failed = failed;
+            this.queueDepth = queueDepth;
+            this.inFlight = inFlight;
+            this.pagesPerSecond = pagesPerSecond;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%.1f pages/sec, %d in flight, %d queued, %d done, %d failed",
+                pagesPerSecond, inFlight, queueDepth, completed, failed);
+        }
+    }
+    
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final int limit;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Thread reporter;
+    
+    /**
+     * @param limit maximum number of tasks running at once; match it to the number of open pages
+     */
+    public PageScheduler(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        }
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+    }
+    
+    public int limit() {
+        return limit;
+    }
+    
+    /**
+     * Queue a page task; it starts as soon as a permit is free
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return submit(0, task);
+    }
+    
+    /**
+     * Queue a page task that must not take a permit before the System.nanoTime() value notBefore;
+     * 0 means no delay
+     */
+    public <T> Future<T> submit(long notBefore, Callable<T> task) {
+        queued.incrementAndGet();
+        return executor.submit(() -> {
+            try {
+                long delay = notBefore - System.nanoTime();
+                if (notBefore != 0 && delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                permits.acquire();
+            } finally {
+                queued.decrementAndGet();
+            }
+            inFlight.incrementAndGet();
+            try {
+                T result = task.call();
+                completed.incrementAndGet();
+                return result;
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+                permits.release();
+            }
+        });
+    }
+    
+    public Stats stats() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        long done = completed.get() + failed.get();
+        return new Stats(completed.get(), failed.get(), queued.get(), inFlight.get(),
+            seconds > 0 ? done / seconds : 0);
+    }
+    
+    /**
+     * Print stats periodically until the scheduler is closed, for tuning the limit
+     */
+    public void startReporting(long intervalMs) {
+        reporter = Thread.ofVirtual().name("page-scheduler-stats").start(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(intervalMs);
+                    System.out.println("[scheduler] " + stats());
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        });
+    }
+    
+    @Override
+    public void close() {
+        Thread current = reporter;
+        if (current != null) {
+            current.interrupt();
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs fetch tasks on virtual threads while keeping each host within polite limits.
+ * Every host has a token bucket capping its request rate and an in-flight limit
+ * tuned by AIMD: the limit grows by one each window whose p95 latency stays near
+ * the host's baseline, and halves on a latency spike, a 429/503 or a failed
+ * request, with an exponential pause after throttling responses. Tasks wait for
+ * their host before taking one of the global permits, so a throttled host never
+ * holds capacity that other hosts could use. A task with a not-before time (a
+ * Retry-After) sleeps until then before it even queues for its host, and the
+ * sleep is not counted as latency.
+ */
+public class PolitenessScheduler implements AutoCloseable {
+    
+    public static class Options {
+        public double requestsPerSecond = 5;
+        public int burst = 5;
+        public int initialInFlight = 2;
+        public int maxInFlight = 16;
+        // Across all hosts
+        public int totalInFlight = 64;
+        // A window p95 above this multiple of the host's baseline p95 counts as a spike
+        public double latencySpikeFactor = 2.0;
+        public int latencyWindow = 20;
+        public long maxPauseMs = 60_000;
+    }
+    
+    /** Status to report for a task that threw instead of returning a response */
+    public static final int FAILED = -1;
+    
+    private static final long MIN_DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Options options;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    
+    public PolitenessScheduler(Options options) {
+        this.options = options;
+        this.permits = new Semaphore(options.totalInFlight, true);
+    }
+    
+    /**
+     * Queue a task for the URL's host; statusOf maps the task's result to its HTTP status
+     */
+    public <T> Future<T> submit(String url, Callable<T> task, ToIntFunction<T> statusOf) {
+        return submit(url, 0, task, statusOf);
+    }
+    
+    /**
+     * Queue a task that must not start before the System.nanoTime() value notBefore; 0 means no delay
+     */
+    public <T> Future<T> submit(String url, long notBefore, Callable<T> task, ToIntFunction<T> statusOf) {
+        Host host = hosts.computeIfAbsent(hostOf(url), Host::new);
+        return executor.submit(() -> {
+            long delay = notBefore - System.nanoTime();
+            if (notBefore != 0 && delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            host.acquire();
+            int status = FAILED;
+            long latency = 0;
+            try {
+                permits.acquire();
+                long start = System.nanoTime();
+                try {
+                    T result = task.call();
+                    status = statusOf.applyAsInt(result);
+                    return result;
+                } finally {
+                    latency = System.nanoTime() - start;
+                    permits.release();
+                }
+            } finally {
+                host.release(latency, status);
+                completed.incrementAndGet();
+            }
+        });
+    }
+    
+    private static String hostOf(String url) {
+        URI uri = URI.create(url);
+        return uri.getPort() == -1 ? uri.getHost().toLowerCase() : uri.getHost().toLowerCase() + ":" + uri.getPort();
+    }
+    
+    /**
+     * Current in-flight limit for a host, or 0 if nothing was submitted for it yet
+     */
+    public int limit(String host) {
+        Host state = hosts.get(host);
+        return state == null ? 0 : state.limit();
+    }
+    
+    @Override
+    public String toString() {
+        int limitSum = 0;
+        int inFlight = 0;
+        for (Host host : hosts.values()) {
+            limitSum += host.limit();
+            inFlight += host.inFlight();
+        }
+        return String.format("%d hosts, %d in flight, mean limit %.1f, %d done, %d throttled",
+            hosts.size(), inFlight, hosts.isEmpty() ? 0.0 : (double) limitSum / hosts.size(),
+            completed.get(), throttled.get());
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Token bucket, in-flight limit and latency window of one host
+     */
+    private final class Host {
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final long[] latencies = new long[options.latencyWindow];
+        private double tokens = options.burst;
+        private long refilledAt = System.nanoTime();
+        private double limit = options.initialInFlight;
+        private int inFlight;
+        private int samples;
+        private long baselineP95;
+        private long lastDecrease;
+        private long pausedUntil;
+        private int consecutivePauses;
+        
+        Host(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Wait until the host has a token, a free in-flight slot and is not paused
+         */
+        void acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    tokens = Math.min(options.burst, tokens + (now - refilledAt) / 1e9 * options.requestsPerSecond);
+                    refilledAt = now;
+                    if (now - pausedUntil < 0) {
+                        changed.awaitNanos(pausedUntil - now);
+                    } else if (inFlight >= (int) limit) {
+                        changed.await();
+                    } else if (tokens < 1) {
+                        changed.awaitNanos((long) ((1 - tokens) / options.requestsPerSecond * 1e9));
+                    } else {
+                        tokens -= 1;
+                        inFlight++;
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        void release(long latencyNanos, int status) {
+            lock.lock();
+            try {
+                inFlight--;
+                long now = System.nanoTime();
+                if (status == 429 || status == 503) {
+                    throttled.incrementAndGet();
+                    decrease(now);
+                    // Pause the host, doubling per consecutive throttle: 1s, 2s, 4s ... up to maxPauseMs
+                    long pauseMs = Math.min(options.maxPauseMs, 1000L << Math.min(consecutivePauses++, 16));
+                    pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(pauseMs);
+                    System.out.println("[politeness] " + name + " answered " + status + "; pausing " + pauseMs
+                        + " ms, limit " + (int) limit);
+                } else if (status == FAILED) {
+                    decrease(now);
+                } else {
+                    consecutivePauses = 0;
+                    latencies[samples++] = latencyNanos;
+                    if (samples == latencies.length) {
+                        adjust(now);
+                        samples = 0;
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * Additive increase while the window's p95 stays within the spike factor of the baseline
+         */
+        private void adjust(long now) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            long p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+            if (baselineP95 == 0) {
+                baselineP95 = p95;
+            }
+            if (p95 > baselineP95 * options.latencySpikeFactor) {
+                decrease(now);
+            } else {
+                limit = Math.min(options.maxInFlight, limit + 1);
+            }
+            // Follow improvements at once but a slowdown only a tenth per window, so a spike stands
+            // out while a host that stays slower settles on a new baseline
+            baselineP95 = p95 < baselineP95 ? p95 : baselineP95 + (p95 - baselineP95) / 10;
+        }
+        
+        /**
+         * Multiplicative decrease, at most once a second so one burst of failures counts once
+         */
+        private void decrease(long now) {
+            if (lastDecrease != 0 && now - lastDecrease < MIN_DECREASE_INTERVAL_NANOS) {
+                return;
+            }
+            lastDecrease = now;
+            limit = Math.max(1, limit / 2);
+        }
+        
+        int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import com.google.gson.Gson;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local store of per-URL validators and extracted links for incremental crawls.
+ * Each page is one JSON line in pages.jsonl holding its ETag, Last-Modified,
+ * content hash and links. Only the validators and the byte range of each line
+ * are kept in memory; links of unchanged pages are read back from the previous
+ * run's file on demand. A run writes a fresh file and swaps it in on close,
+ * carrying over pages it did not revisit.
+ */
+public class RecrawlStore implements Closeable {
+    
+    public static class Validators {
+        public final String etag;
+        public final String lastModified;
+        public final String contentHash;
+        
+        public Validators(String etag, String lastModified, String contentHash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+    }
+    
+    // One line of pages.jsonl
+    private static class Record {
+        String url;
+        String etag;
+        String lastModified;
+        String contentHash;
+        List<FetchLinks.LinkInfo> links;
+    }
+    
+    // Validators of a previous-run page plus where its line sits in the old file
+    private static class Previous {
+        final Validators validators;
+        final long offset;
+        final int length;
+        
+        Previous(Validators validators, long offset, int length) {
+            this.validators = validators;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+    
+    private static final String FILE_NAME = "pages.jsonl";
+    
+    private final Gson gson = new Gson();
+    private final Path file;
+    private final Path nextFile;
+    private final Map<String, Previous> previous = new ConcurrentHashMap<>();
+    private final Set<String> recorded = ConcurrentHashMap.newKeySet();
+    private final FileChannel previousChannel;
+    private final OutputStream next;
+    
+    public RecrawlStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE_NAME);
+        this.nextFile = directory.resolve(FILE_NAME + ".next");
+        if (Files.exists(file)) {
+            loadIndex();
+            this.previousChannel = FileChannel.open(file, StandardOpenOption.READ);
+        } else {
+            this.previousChannel = null;
+        }
+        this.next = Files.newOutputStream(nextFile);
+    }
+    
+    /**
+     * Validators from the previous run, or null if the URL was not seen before
+     */
+    public Validators validators(String url) {
+        Previous entry = previous.get(url);
+        return entry == null ? null : entry.validators;
+    }
+    
+    /**
+     * Links extracted for the URL in the previous run, or null if there are none
+     */
+    public List<FetchLinks.LinkInfo> previousLinks(String url) throws IOException {
+        Previous entry = previous.get(url);
+        if (entry == null) {
+            return null;
+        }
+        Record record = readPrevious(entry);
+        return record.links;
+    }
+    
+    /**
+     * Record the validators and links of a page visited in this run
+     */
+    public void record(String url, Validators validators, List<FetchLinks.LinkInfo> links) throws IOException {
+        Record record = new Record();
+        record.url = url;
+        record.etag = validators == null ? null : validators.etag;
+        record.lastModified = validators == null ? null : validators.lastModified;
+        record.contentHash = validators == null ? null : validators.contentHash;
+        record.links = links;
+        byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (next) {
+            if (recorded.add(url)) {
+                next.write(line);
+            }
+        }
+    }
+    
+    /**
+     * Carry over pages not revisited in this run, then replace the previous file
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (next) {
+            try {
+                if (previousChannel != null) {
+                    for (Map.Entry<String, Previous> entry : previous.entrySet()) {
+                        if (!recorded.contains(entry.getKey())) {
+                            next.write(readLine(entry.getValue()));
+                        }
+                    }
+                    previousChannel.close();
+                }
+            } finally {
+                next.close();
+            }
+            Files.move(nextFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    private Record readPrevious(Previous entry) throws IOException {
+        return gson.fromJson(new String(readLine(entry), StandardCharsets.UTF_8), Record.class);
+    }
+    
+    private byte[] readLine(Previous entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        long position = entry.offset;
+        while (buffer.hasRemaining()) {
+            int read = previousChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated " + file);
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Scan the previous file once, keeping validators and line positions but not links
+     */
+    private void loadIndex() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            long lineStart = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                line.write(b);
+                if (b == '\n') {
+                    index(line.toByteArray(), lineStart);
+                    line.reset();
+                    lineStart = offset;
+                }
+            }
+            if (line.size() > 0) {
+                // A run killed mid-write can leave a partial last line; skip it
+                System.err.println("Ignoring incomplete record at end of " + file);
+            }
+        }
+    }
+    
+    private void index(byte[] line, long offset) {
+        try {
+            Record record = gson.fromJson(new String(line, StandardCharsets.UTF_8), Record.class);
+            if (record != null && record.url != null) {
+                previous.put(record.url, new Previous(
+                    new Validators(record.etag, record.lastModified, record.contentHash), offset, line.length));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Skipping malformed record at byte " + offset + " of " + file);
+        }
+    }
+}
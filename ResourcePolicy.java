@@ -0,0 +1,100 @@
+import com.microsoft.playwright.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Request filter for link extraction pages.
+ * Aborts requests by Playwright resource type and by URL pattern, while
+ * URLs matching an allow pattern (e.g. the script that drives the menu)
+ * always load. Counts what was blocked per page; since blocked responses
+ * never arrive, bytes saved are estimated from typical sizes per type.
+ */
+public class ResourcePolicy {
+    
+    /**
+     * Per-page counters collected while the policy is attached
+     */
+    public static class Stats {
+        public int allowedRequests;
+        public int blockedRequests;
+        public long estimatedBytesSaved;
+        public final Map<String, Integer> blockedByType = new TreeMap<>();
+        
+        @Override
+        public String toString() {
+            return blockedRequests + " of " + (blockedRequests + allowedRequests) + " requests blocked (~"
+                + estimatedBytesSaved / 1024 + " KB saved) " + blockedByType;
+        }
+    }
+    
+    public Set<String> blockedTypes = new HashSet<>(Set.of("image", "media", "font"));
+    
+    public List<Pattern> blockedUrls = new ArrayList<>(List.of(
+        Pattern.compile("google-analytics\\.com|googletagmanager\\.com|doubleclick\\.net"),
+        Pattern.compile("facebook\\.net|connect\\.facebook|hotjar\\.com|segment\\.(io|com)"),
+        Pattern.compile("newrelic\\.com|nr-data\\.net|clarity\\.ms|bat\\.bing\\.com")));
+    
+    public List<Pattern> allowedUrls = new ArrayList<>();
+    
+    // Rough per-request transfer sizes used to estimate bytes saved
+    public Map<String, Long> typicalBytes = new HashMap<>(Map.of(
+        "image", 15_000L,
+        "media", 500_000L,
+        "font", 30_000L,
+        "script", 25_000L,
+        "stylesheet", 20_000L,
+        "xhr", 2_000L,
+        "fetch", 2_000L,
+        "other", 5_000L));
+    
+    /**
+     * Policy that blocks nothing, for comparisons
+     */
+    public static ResourcePolicy allowAll() {
+        ResourcePolicy policy = new ResourcePolicy();
+        policy.blockedTypes.clear();
+        policy.blockedUrls.clear();
+        return policy;
+    }
+    
+    /**
+     * Install the policy on the page before navigation; the returned stats fill in as the page loads
+     */
+    public Stats attach(Page page) {
+        Stats stats = new Stats();
+        page.route("**/*", route -> {
+            Request request = route.request();
+            String type = request.resourceType();
+            if (shouldBlock(request.url(), type)) {
+                stats.blockedRequests++;
+                stats.blockedByType.merge(type, 1, Integer::sum);
+                stats.estimatedBytesSaved += typicalBytes.getOrDefault(type, typicalBytes.getOrDefault("other", 0L));
+                route.abort("blockedbyclient");
+            } else {
+                stats.allowedRequests++;
+                route.resume();
+            }
+        });
+        return stats;
+    }
+    
+    boolean shouldBlock(String url, String type) {
+        if (type.equals("document")) {
+            return false;
+        }
+        for (Pattern allowed : allowedUrls) {
+            if (allowed.matcher(url).find()) {
+                return false;
+            }
+        }
+        if (blockedTypes.contains(type)) {
+            return true;
+        }
+        for (Pattern blocked : blockedUrls) {
+            if (blocked.matcher(url).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -77,28 +77,48 @@ public class SalesforceDetailsTabLocators {
         public static final By SKIP_FEED_LINK_TEXT = By.linkText("Skip Feed");
     }
     
+    // ========== LOCATOR CHAINS ==========
+    
+    // Alternates above, tried in turn with the most successful first
+    public static class Chains {
+        public static final LocatorChain SEARCH_INPUT = LocatorChain.of("SalesforceDetailsTabLocators/Chains/SEARCH_INPUT",
+            InputFields.SEARCH_INPUT, InputFields.SEARCH_INPUT_XPATH);
+        public static final LocatorChain CANCEL_BUTTON = LocatorChain.of("SalesforceDetailsTabLocators/Chains/CANCEL_BUTTON",
+            Buttons.CANCEL_BUTTON, Buttons.CANCEL_BUTTON_CSS);
+        public static final LocatorChain DISMISS_ERROR_LINK = LocatorChain.of("SalesforceDetailsTabLocators/Chains/DISMISS_ERROR_LINK",
+            NavigationLinks.DISMISS_ERROR_LINK, NavigationLinks.DISMISS_ERROR_LINK_XPATH);
+        public static final LocatorChain REFRESH_PAGE_LINK = LocatorChain.of("SalesforceDetailsTabLocators/Chains/REFRESH_PAGE_LINK",
+            NavigationLinks.REFRESH_PAGE_LINK, NavigationLinks.REFRESH_PAGE_LINK_XPATH);
+        public static final LocatorChain DETAILS_TAB = LocatorChain.of("SalesforceDetailsTabLocators/Chains/DETAILS_TAB",
+            NavigationLinks.DETAILS_TAB, NavigationLinks.DETAILS_TAB_TEXT);
+        public static final LocatorChain RELATED_TAB = LocatorChain.of("SalesforceDetailsTabLocators/Chains/RELATED_TAB",
+            NavigationLinks.RELATED_TAB, NavigationLinks.RELATED_TAB_TEXT);
+        public static final LocatorChain ACTIVITY_TAB = LocatorChain.of("SalesforceDetailsTabLocators/Chains/ACTIVITY_TAB",
+            NavigationLinks.ACTIVITY_TAB, NavigationLinks.ACTIVITY_TAB_TEXT);
+        public static final LocatorChain POST_LINK = LocatorChain.of("SalesforceDetailsTabLocators/Chains/POST_LINK",
+            NavigationLinks.POST_LINK, NavigationLinks.POST_LINK_TEXT);
+        public static final LocatorChain MORE_LINK = LocatorChain.of("SalesforceDetailsTabLocators/Chains/MORE_LINK",
+            NavigationLinks.MORE_LINK, NavigationLinks.MORE_LINK_TEXT);
+        public static final LocatorChain SKIP_FEED_LINK = LocatorChain.of("SalesforceDetailsTabLocators/Chains/SKIP_FEED_LINK",
+            NavigationLinks.SKIP_FEED_LINK, NavigationLinks.SKIP_FEED_LINK_TEXT);
+    }
+    
     // ========== HELPER METHODS ==========
     
+    private static final LocatorCache.Template TAB_BY_NAME = LocatorCache.template("details-tab/tab-by-name",
+        tabName -> By.xpath("//a[contains(text(), '" + tabName.toUpperCase() + "')]"));
+    
     /**
-     * Get locator by element type and label
+     * Get locator by element type and label; repeat lookups return the cached By
      */
     public static By getLocatorByLabel(String elementType, String label) {
-        switch (elementType.toUpperCase()) {
-            case "BUTTON":
-                return By.xpath("//button[contains(text(), '" + label + "')]");
-            case "LINK":
-                return By.linkText(label);
-            case "INPUT":
-                return By.xpath("//input[@placeholder='" + label + "' or @aria-label='" + label + "']");
-            default:
-                return null;
-        }
+        return LocatorRegistry.byLabel(elementType, label);
     }
     
     /**
      * Get dynamic XPath for tab by name
      */
     public static By getTabByName(String tabName) {
-        return By.xpath("//a[contains(text(), '" + tabName.toUpperCase() + "')]");
+        return LocatorCache.SHARED.get(TAB_BY_NAME, tabName);
     }
 }
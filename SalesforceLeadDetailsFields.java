@@ -112,24 +112,31 @@ public class SalesforceLeadDetailsFields {
     
     // ========== HELPER METHODS ==========
     
+    private static final LocatorCache.Template FIELD_LABEL = LocatorCache.template("details/field-label",
+        fieldName -> By.xpath("//span[text()='" + fieldName + "']"));
+    private static final LocatorCache.Template EDIT_BUTTON = LocatorCache.template("details/edit-button",
+        fieldName -> By.xpath("//span[text()='Edit " + fieldName + "']"));
+    private static final LocatorCache.Template FIELD_VALUE = LocatorCache.template("details/field-value",
+        fieldLabel -> By.xpath("//span[text()='" + fieldLabel + "']/following::span[1]"));
+    
     /**
      * Get field label locator by field name
      */
     public static By getFieldLabel(String fieldName) {
-        return By.xpath("//span[text()='" + fieldName + "']");
+        return LocatorCache.SHARED.get(FIELD_LABEL, fieldName);
     }
     
     /**
      * Get edit button locator by field name
      */
     public static By getEditButton(String fieldName) {
-        return By.xpath("//span[text()='Edit " + fieldName + "']");
+        return LocatorCache.SHARED.get(EDIT_BUTTON, fieldName);
     }
     
     /**
      * Get field value locator (following sibling of label)
      */
     public static By getFieldValue(String fieldLabel) {
-        return By.xpath("//span[text()='" + fieldLabel + "']/following::span[1]");
+        return LocatorCache.SHARED.get(FIELD_VALUE, fieldLabel);
     }
 }
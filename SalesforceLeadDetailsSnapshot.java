@@ -0,0 +1,258 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Every label/value pair on the Lead Details tab, read with one executeScript call.
+ * Checking the fields one at a time costs a findElement round trip per txt_* label
+ * plus one per getFieldValue; this reader sends the label list to the page once and
+ * resolves each value in the browser with the same //span[text()=...]/following::span[1]
+ * XPath that getFieldValue uses.
+ *
+ * The typed fields mirror SalesforceLeadDetailsFields.FieldValues, so a page can be
+ * checked with read(driver).compare(expected()).
+ */
+public final class SalesforceLeadDetailsSnapshot {
+    
+    /** Labels of every txt_* constant in SalesforceLeadDetailsFields, in declaration order */
+    public static final List<String> LABELS = labels();
+    
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("M/d/yyyy, h:mm a", Locale.US);
+    
+    // arguments[0] is the list of value XPaths; returns one string (or null if absent) per XPath
+    static final String READ_VALUES_SCRIPT =
+        "const xpaths = arguments[0];" +
+        "const values = [];" +
+        "for (const xpath of xpaths) {" +
+        "  const node = document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+        "  values.push(node ? (node.innerText || node.textContent || '').trim() : null);" +
+        "}" +
+        "return values;";
+    
+    // "Anatswanashe Skeets, 12/6/2025, 8:01 PM" -> "Anatswanashe Skeets"
+    private static final Pattern TRAILING_DATE = Pattern.compile(",\\s*\\d{1,2}/\\d{1,2}/\\d{4},.*$");
+    
+    /** Raw text by label; labels that are not on the page are absent */
+    public final Map<String, String> values;
+    
+    public final String name;
+    public final String assignedAgent;
+    public final String company;
+    public final LocalDateTime leadCreatedDate;
+    public final String leadStatus;
+    public final String campaignType;
+    public final String leadSource;
+    public final String lastModifiedBy;
+    public final String address;
+    public final String cityStateZip;
+    public final String country;
+    public final String research;
+    public final String agencyOwner;
+    public final String agencyName;
+    public final Integer noOfEmployees;
+    
+    private SalesforceLeadDetailsSnapshot(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+        this.name = values.get("Name");
+        this.assignedAgent = values.get("Assigned Agent");
+        this.company = values.get("Company");
+        this.leadCreatedDate = parseDateTime(values.get("Lead Created Date"));
+        this.leadStatus = values.get("Lead Status");
+        this.campaignType = values.get("Campaign Type");
+        this.leadSource = values.get("Lead Source");
+        String modifiedBy = values.get("Last Modified By");
+        this.lastModifiedBy = modifiedBy == null ? null : TRAILING_DATE.matcher(modifiedBy).replaceFirst("");
+        // the Address value renders as street, city/state/zip and country on separate lines
+        String[] addressLines = lines(values.get("Address"));
+        this.address = addressLines.length > 0 ? addressLines[0] : null;
+        this.cityStateZip = addressLines.length > 1 ? addressLines[1] : null;
+        this.country = addressLines.length > 2 ? addressLines[2] : null;
+        this.research = values.get("Research");
+        this.agencyOwner = values.get("Agency Owner");
+        this.agencyName = values.get("Agency Name");
+        this.noOfEmployees = parseInteger(values.get("No. of Employees"));
+    }
+    
+    /**
+     * Read every label on the Details tab in one round trip
+     */
+    public static SalesforceLeadDetailsSnapshot read(WebDriver driver) {
+        return read(driver, LABELS);
+    }
+    
+    /**
+     * Read the given labels in one round trip
+     */
+    public static SalesforceLeadDetailsSnapshot read(WebDriver driver, List<String> labels) {
+        List<String> xpaths = new ArrayList<>(labels.size());
+        for (String label : labels) {
+            xpaths.add("//span[text()=" + xpathLiteral(label) + "]/following::span[1]");
+        }
+        Object result = ((JavascriptExecutor) driver).executeScript(READ_VALUES_SCRIPT, xpaths);
+        if (!(result instanceof List)) {
+            throw new IllegalStateException("Unexpected result from the Details tab script: " + result);
+        }
+        List<?> found = (List<?>) result;
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < labels.size() && i < found.size(); i++) {
+            if (found.get(i) != null) {
+                values.put(labels.get(i), found.get(i).toString());
+            }
+        }
+        return new SalesforceLeadDetailsSnapshot(values);
+    }
+    
+    /**
+     * Snapshot built from label/value pairs already read some other way
+     */
+    public static SalesforceLeadDetailsSnapshot of(Map<String, String> values) {
+        return new SalesforceLeadDetailsSnapshot(values);
+    }
+    
+    /**
+     * The record described by SalesforceLeadDetailsFields.FieldValues
+     */
+    public static SalesforceLeadDetailsSnapshot expected() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("Name", SalesforceLeadDetailsFields.FieldValues.NAME);
+        values.put("Assigned Agent", SalesforceLeadDetailsFields.FieldValues.ASSIGNED_AGENT);
+        values.put("Company", SalesforceLeadDetailsFields.FieldValues.COMPANY);
+        values.put("Lead Created Date", SalesforceLeadDetailsFields.FieldValues.LEAD_CREATED_DATE);
+        values.put("Lead Status", SalesforceLeadDetailsFields.FieldValues.LEAD_STATUS);
+        values.put("Campaign Type", SalesforceLeadDetailsFields.FieldValues.CAMPAIGN_TYPE);
+        values.put("Lead Source", SalesforceLeadDetailsFields.FieldValues.LEAD_SOURCE);
+        values.put("Last Modified By", SalesforceLeadDetailsFields.FieldValues.LAST_MODIFIED_BY);
+        values.put("Address", SalesforceLeadDetailsFields.FieldValues.ADDRESS + "\n"
+            + SalesforceLeadDetailsFields.FieldValues.CITY_STATE_ZIP + "\n"
+            + SalesforceLeadDetailsFields.FieldValues.COUNTRY);
+        values.put("Research", SalesforceLeadDetailsFields.FieldValues.RESEARCH);
+        values.put("Agency Owner", SalesforceLeadDetailsFields.FieldValues.AGENCY_OWNER);
+        values.put("Agency Name", SalesforceLeadDetailsFields.FieldValues.AGENCY_NAME);
+        values.put("No. of Employees", SalesforceLeadDetailsFields.FieldValues.NO_OF_EMPLOYEES);
+        return new SalesforceLeadDetailsSnapshot(values);
+    }
+    
+    /**
+     * Raw text for a label, or null if it was not on the page
+     */
+    public String value(String label) {
+        return values.get(label);
+    }
+    
+    /**
+     * One line per typed field that differs from expected; fields expected leaves null are not checked.
+     * A date or number that did not parse is reported with its raw text rather than as null.
+     */
+    public List<String> compare(SalesforceLeadDetailsSnapshot expected) {
+        List<String> mismatches = new ArrayList<>();
+        check(mismatches, "name", expected.name, name);
+        check(mismatches, "assignedAgent", expected.assignedAgent, assignedAgent);
+        check(mismatches, "company", expected.company, company);
+        checkParsed(mismatches, "leadCreatedDate", expected.leadCreatedDate, expected.value("Lead Created Date"),
+            leadCreatedDate, value("Lead Created Date"));
+        check(mismatches, "leadStatus", expected.leadStatus, leadStatus);
+        check(mismatches, "campaignType", expected.campaignType, campaignType);
+        check(mismatches, "leadSource", expected.leadSource, leadSource);
+        check(mismatches, "lastModifiedBy", expected.lastModifiedBy, lastModifiedBy);
+        check(mismatches, "address", expected.address, address);
+        check(mismatches, "cityStateZip", expected.cityStateZip, cityStateZip);
+        check(mismatches, "country", expected.country, country);
+        check(mismatches, "research", expected.research, research);
+        check(mismatches, "agencyOwner", expected.agencyOwner, agencyOwner);
+        check(mismatches, "agencyName", expected.agencyName, agencyName);
+        checkParsed(mismatches, "noOfEmployees", expected.noOfEmployees, expected.value("No. of Employees"),
+            noOfEmployees, value("No. of Employees"));
+        return mismatches;
+    }
+    
+    public boolean matches(SalesforceLeadDetailsSnapshot expected) {
+        return compare(expected).isEmpty();
+    }
+    
+    private static void check(List<String> mismatches, String field, Object expected, Object actual) {
+        if (expected != null && !expected.equals(actual)) {
+            mismatches.add(field + ": expected '" + expected + "' but was '" + actual + "'");
+        }
+    }
+    
+    /**
+     * check() for a field parsed from text: an expected value that did not parse is a mismatch
+     * rather than skipped, and an actual value that did not parse is shown as its raw text
+     */
+    private static void checkParsed(List<String> mismatches, String field, Object expected, String expectedText,
+                                    Object actual, String actualText) {
+        if (expected == null && expectedText != null) {
+            mismatches.add(field + ": expected value '" + expectedText + "' could not be parsed");
+        } else if (expected != null && actual == null && actualText != null) {
+            mismatches.add(field + ": expected '" + expected + "' but was unparseable '" + actualText + "'");
+        } else {
+            check(mismatches, field, expected, actual);
+        }
+    }
+    
+    private static List<String> labels() {
+        Pattern spanText = Pattern.compile("//span\\[text\\(\\)='([^']*)'\\]");
+        List<String> labels = new ArrayList<>();
+        for (LocatorRegistry.Entry entry : LocatorRegistry.entries()) {
+            if (!entry.page.equals("SalesforceLeadDetailsFields") || !entry.section.equals("txt")) {
+                continue;
+            }
+            Matcher matcher = spanText.matcher(entry.by.toString());
+            if (matcher.find()) {
+                labels.add(matcher.group(1));
+            }
+        }
+        return List.copyOf(labels);
+    }
+    
+    // XPath 1.0 has no escapes; a label containing ' has to be built with concat()
+    static String xpathLiteral(String text) {
+        if (text.indexOf('\'') < 0) {
+            return "'" + text + "'";
+        }
+        if (text.indexOf('"') < 0) {
+            return "\"" + text + "\"";
+        }
+        return "concat('" + text.replace("'", "', \"'\", '") + "')";
+    }
+    
+    private static String[] lines(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(text.split("\\R")).map(String::trim).filter(line -> !line.isEmpty()).toArray(String[]::new);
+    }
+    
+    // null when absent or unparseable; compare() falls back to the raw text in values
+    private static LocalDateTime parseDateTime(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text.trim(), DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    private static Integer parseInteger(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(text.trim().replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "SalesforceLeadDetailsSnapshot" + values;
+    }
+}
@@ -45,24 +45,31 @@ public class SalesforceLeadLocators {
     public static final By link_Activity_Tab = By.linkText("ACTIVITY");
     public static final By link_Post = By.linkText("Post");
     
+    private static final LocatorCache.Template SPAN_BY_TEXT = LocatorCache.template("lead/span-by-text",
+        text -> By.xpath("//span[text()='" + text + "']"));
+    private static final LocatorCache.Template BUTTON_BY_TEXT = LocatorCache.template("lead/button-by-text",
+        text -> By.xpath("//button[contains(text(),'" + text + "')]"));
+    private static final LocatorCache.Template TAB_BY_NAME = LocatorCache.template("lead/tab-by-name",
+        tabName -> By.xpath("//span[text()='" + tabName.toUpperCase() + "']"));
+    
     /**
      * Get dynamic locator for any span text
      */
     public static By getSpanByText(String text) {
-        return By.xpath("//span[text()='" + text + "']");
+        return LocatorCache.SHARED.get(SPAN_BY_TEXT, text);
     }
     
     /**
      * Get dynamic locator for any button text
      */
     public static By getButtonByText(String text) {
-        return By.xpath("//button[contains(text(),'" + text + "')]");
+        return LocatorCache.SHARED.get(BUTTON_BY_TEXT, text);
     }
     
     /**
      * Get dynamic locator for tab by name
      */
     public static By getTabByName(String tabName) {
-        return By.xpath("//span[text()='" + tabName.toUpperCase() + "']");
+        return LocatorCache.SHARED.get(TAB_BY_NAME, tabName);
     }
 }
@@ -0,0 +1,930 @@
+import com.microsoft.playwright.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Offline compiler from the positional By.xpath constants in the locator classes
+ * to short CSS selectors. Reads a DOM snapshot saved from the record page
+ * (page.content() or "Save page as"), builds a small tree from it with
+ * HtmlTokenizer, resolves each XPath against that tree and searches for the
+ * shortest selector that matches the same element and nothing else, preferring
+ * stable attributes (data-* test hooks, name, aria-label, title, placeholder,
+ * hand-written ids and classes) over positions.
+ *
+ * For every locator it prints the XPath and CSS match counts and the time each
+ * takes to evaluate, on the snapshot tree and, with --browser, in Chromium.
+ *
+ * Usage: SelectorCompiler <snapshot.html> [--all] [--page <LocatorClass>] [--runs N] [--browser]
+ *   --all   compile every By.xpath constant, not just the positional ones
+ */
+public class SelectorCompiler {
+    
+    // Attributes worth anchoring on, most specific first
+    static final List<String> STABLE_ATTRIBUTES = List.of(
+        "data-testid", "data-test-id", "data-qa", "data-id", "data-target-selection-name",
+        "data-tab-value", "data-label", "name", "aria-label", "title", "placeholder", "role", "type");
+    
+    // Salesforce and other frameworks generate ids like 187:0, 5:938;a or input-1203
+    private static final Pattern GENERATED_ID = Pattern.compile(".*[:;].*|^\\d.*|.*\\d{3,}.*");
+    private static final Pattern CSS_IDENTIFIER = Pattern.compile("-?[_a-zA-Z][_a-zA-Z0-9-]*");
+    private static final Pattern STATE_CLASS = Pattern.compile("(slds-)?(is|has)-.*|active|selected|focus.*|hover.*|.*\\d{3,}.*");
+    private static final Pattern POSITIONAL_STEP = Pattern.compile("\\[\\d+\\]");
+    
+    // ========== SNAPSHOT TREE ==========
+    
+    /**
+     * Element of the snapshot; order and end are document-order indexes of the element and its last descendant
+     */
+    static final class Node {
+        final String tag;
+        final Map<String, String> attributes;
+        final Node parent;
+        final List<Node> children = new ArrayList<>();
+        // own text nodes, as XPath text() sees them
+        final List<String> texts = new ArrayList<>();
+        int typeIndex;
+        int typeCount;
+        int order;
+        int end;
+        
+        Node(String tag, Map<String, String> attributes, Node parent) {
+            this.tag = tag;
+            this.attributes = attributes;
+            this.parent = parent;
+        }
+        
+        String attribute(String name) {
+            return attributes.get(name);
+        }
+        
+        String stringValue() {
+            StringBuilder sb = new StringBuilder();
+            appendText(sb);
+            return sb.toString();
+        }
+        
+        private void appendText(StringBuilder sb) {
+            // own text and child text interleaving is lost; good enough for normalize-space and contains
+            for (String text : texts) {
+                sb.append(text);
+            }
+            for (Node child : children) {
+                child.appendText(sb);
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return tag + attributes;
+        }
+    }
+    
+    /**
+     * Snapshot tree plus every element in document order
+     */
+    static final class Dom {
+        final Node document = new Node("#document", Map.of(), null);
+        final List<Node> nodes = new ArrayList<>();
+        
+        static Dom parse(Reader reader) throws IOException {
+            Dom dom = new Dom();
+            new TreeBuilder(dom.document).build(new HtmlTokenizer(reader));
+            dom.index();
+            return dom;
+        }
+        
+        private void index() {
+            Deque<Node> stack = new ArrayDeque<>();
+            for (int i = document.children.size() - 1; i >= 0; i--) {
+                stack.push(document.children.get(i));
+            }
+            document.order = -1;
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                node.order = nodes.size();
+                nodes.add(node);
+                for (int i = node.children.size() - 1; i >= 0; i--) {
+                    stack.push(node.children.get(i));
+                }
+            }
+            // children come after their parent, so walking backwards sees a node's last child first
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                Node node = nodes.get(i);
+                node.end = node.children.isEmpty() ? node.order : node.children.get(node.children.size() - 1).end;
+                countTypes(node);
+            }
+            countTypes(document);
+            document.end = nodes.size() - 1;
+        }
+        
+        private static void countTypes(Node parent) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Node child : parent.children) {
+                counts.merge(child.tag, 1, Integer::sum);
+            }
+            for (Node child : parent.children) {
+                child.typeCount = counts.get(child.tag);
+            }
+        }
+    }
+    
+    /**
+     * The subset of HTML tree construction the locator XPaths depend on: implied
+     * html/head/body and the common implied end tags, as in StaticLinkExtractor
+     */
+    private static final class TreeBuilder {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private boolean textOpen;
+        private boolean htmlSeen;
+        private boolean headSeen;
+        private boolean bodySeen;
+        
+        TreeBuilder(Node document) {
+            stack.push(document);
+        }
+        
+        void build(HtmlTokenizer tokenizer) throws IOException {
+            HtmlTokenizer.TokenType token;
+            while ((token = tokenizer.next()) != HtmlTokenizer.TokenType.EOF) {
+                switch (token) {
+                    case START_TAG:
+                        startTag(tokenizer.tagName(), new LinkedHashMap<>(tokenizer.attributes()), tokenizer.selfClosing());
+                        textOpen = false;
+                        break;
+                    case END_TAG:
+                        endTag(tokenizer.tagName());
+                        textOpen = false;
+                        break;
+                    case TEXT:
+                        text(tokenizer.text());
+                        break;
+                    default:
+                        // a comment splits the text around it into two text nodes
+                        textOpen = false;
+                        break;
+                }
+            }
+        }
+        
+        private void startTag(String tag, Map<String, String> attributes, boolean selfClosing) {
+            if (tag.equals("html") && htmlSeen || tag.equals("body") && bodySeen
+                || tag.equals("head") && (headSeen || bodySeen)) {
+                return;
+            }
+            if (!tag.equals("html") && stack.peek().tag.equals("#document")) {
+                push("html", new LinkedHashMap<>());
+            }
+            if (stack.peek().tag.equals("head") && !StaticLinkExtractor.HEAD_ELEMENTS.contains(tag)) {
+                stack.pop();
+            }
+            if (stack.peek().tag.equals("html") && !tag.equals("head") && !tag.equals("body")
+                && !StaticLinkExtractor.HEAD_ELEMENTS.contains(tag)) {
+                push("body", new LinkedHashMap<>());
+            }
+            closeImplied(tag);
+            push(tag, attributes);
+            if (HtmlTokenizer.VOID_ELEMENTS.contains(tag) || selfClosing) {
+                stack.pop();
+            }
+        }
+        
+        private Node push(String tag, Map<String, String> attributes) {
+            Node parent = stack.peek();
+            Node node = new Node(tag, attributes, parent);
+            node.typeIndex = 1;
+            for (Node sibling : parent.children) {
+                if (sibling.tag.equals(tag)) {
+                    node.typeIndex++;
+                }
+            }
+            parent.children.add(node);
+            htmlSeen |= tag.equals("html");
+            headSeen |= tag.equals("head");
+            bodySeen |= tag.equals("body");
+            stack.push(node);
+            return node;
+        }
+        
+        private void closeImplied(String tag) {
+            String top = stack.peek().tag;
+            if (top.equals("p") && StaticLinkExtractor.CLOSES_PARAGRAPH.contains(tag)
+                || tag.equals("li") && top.equals("li")
+                || (tag.equals("dt") || tag.equals("dd")) && (top.equals("dt") || top.equals("dd"))
+                || (tag.equals("td") || tag.equals("th")) && (top.equals("td") || top.equals("th"))
+                || tag.equals("option") && top.equals("option")) {
+                stack.pop();
+            } else if (tag.equals("tr") && find("tr") != null) {
+                popThrough(find("tr"));
+            } else if (tag.equals("a") && find("a") != null) {
+                popThrough(find("a"));
+            }
+        }
+        
+        private void endTag(String tag) {
+            Node open = find(tag);
+            if (open != null) {
+                popThrough(open);
+            }
+        }
+        
+        private void text(String text) {
+            Node parent = stack.peek();
+            if (parent.tag.equals("#document")) {
+                return;
+            }
+            if (textOpen) {
+                int last = parent.texts.size() - 1;
+                parent.texts.set(last, parent.texts.get(last) + text);
+            } else {
+                parent.texts.add(text);
+            }
+            textOpen = true;
+        }
+        
+        private Node find(String tag) {
+            for (Node node : stack) {
+                if (node.tag.equals(tag)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+        
+        private void popThrough(Node target) {
+            while (stack.size() > 1 && stack.pop() != target) {
+                // keep popping
+            }
+        }
+    }
+    
+    // ========== XPATH ==========
+    
+    /**
+     * Evaluate the XPath subset used by the locator classes: child, descendant (//) and
+     * following:: steps with name tests and predicates on position, @attribute, text(),
+     * normalize-space(), contains() and starts-with(), combined with and/or
+     */
+    static List<Node> xpath(Dom dom, String expression) {
+        String x = expression.trim();
+        List<Node> context = List.of(dom.document);
+        int pos = 0;
+        while (pos < x.length()) {
+            boolean descendant;
+            if (x.startsWith("//", pos)) {
+                descendant = true;
+                pos += 2;
+            } else if (x.charAt(pos) == '/') {
+                descendant = false;
+                pos++;
+            } else if (pos == 0) {
+                descendant = false;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + x.charAt(pos) + "' in " + expression);
+            }
+            int end = scan(x, pos, '/');
+            context = step(dom, context, x.substring(pos, end), descendant);
+            pos = end;
+        }
+        return context;
+    }
+    
+    private static List<Node> step(Dom dom, List<Node> contexts, String step, boolean descendant) {
+        String axis = "child";
+        int bracket = step.indexOf('[');
+        int colons = step.indexOf("::");
+        if (colons >= 0 && (bracket < 0 || colons < bracket)) {
+            axis = step.substring(0, colons);
+            step = step.substring(colons + 2);
+            bracket = step.indexOf('[');
+        }
+        String name = (bracket < 0 ? step : step.substring(0, bracket)).trim();
+        List<String> predicates = new ArrayList<>();
+        while (bracket >= 0 && bracket < step.length()) {
+            int close = scan(step, bracket + 1, ']');
+            predicates.add(step.substring(bracket + 1, close));
+            bracket = close + 1;
+        }
+        
+        Set<Node> result = new HashSet<>();
+        for (Node context : contexts) {
+            List<Node> bases = descendant ? descendantsOrSelf(dom, context) : List.of(context);
+            for (Node base : bases) {
+                List<Node> candidates = new ArrayList<>();
+                Collection<Node> axisNodes;
+                switch (axis) {
+                    case "child":
+                        axisNodes = base.children;
+                        break;
+                    case "following":
+                        axisNodes = dom.nodes.subList(base.end + 1, dom.nodes.size());
+                        break;
+                    case "descendant":
+                        axisNodes = dom.nodes.subList(base.order + 1, base.end + 1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Axis " + axis + " is not supported");
+                }
+                for (Node node : axisNodes) {
+                    if (name.equals("*") || node.tag.equals(name)) {
+                        candidates.add(node);
+                    }
+                }
+                for (String predicate : predicates) {
+                    List<Node> kept = new ArrayList<>();
+                    for (int i = 0; i < candidates.size(); i++) {
+                        if (predicate(candidates.get(i), predicate.trim(), i + 1)) {
+                            kept.add(candidates.get(i));
+                        }
+                    }
+                    candidates = kept;
+                }
+                result.addAll(candidates);
+            }
+        }
+        List<Node> sorted = new ArrayList<>(result);
+        sorted.sort(Comparator.comparingInt(node -> node.order));
+        return sorted;
+    }
+    
+    private static List<Node> descendantsOrSelf(Dom dom, Node node) {
+        if (node == dom.document) {
+            List<Node> all = new ArrayList<>(dom.nodes.size() + 1);
+            all.add(dom.document);
+            all.addAll(dom.nodes);
+            return all;
+        }
+        return dom.nodes.subList(node.order, node.end + 1);
+    }
+    
+    private static boolean predicate(Node node, String predicate, int position) {
+        if (predicate.chars().allMatch(Character::isDigit)) {
+            return position == Integer.parseInt(predicate);
+        }
+        List<String> any = split(predicate, " or ");
+        if (any.size() > 1) {
+            for (String part : any) {
+                if (predicate(node, part.trim(), position)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        List<String> all = split(predicate, " and ");
+        if (all.size() > 1) {
+            for (String part : all) {
+                if (!predicate(node, part.trim(), position)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (String function : List.of("contains(", "starts-with(")) {
+            if (predicate.startsWith(function) && predicate.endsWith(")")) {
+                List<String> args = split(predicate.substring(function.length(), predicate.length() - 1), ",");
+                if (args.size() != 2) {
+                    break;
+                }
+                String haystack = value(node, args.get(0).trim());
+                String needle = literal(args.get(1).trim());
+                if (haystack == null) {
+                    return false;
+                }
+                return function.equals("contains(") ? haystack.contains(needle) : haystack.startsWith(needle);
+            }
+        }
+        int equals = scan(predicate, 0, '=');
+        if (equals < predicate.length()) {
+            String left = predicate.substring(0, equals).trim();
+            String expected = literal(predicate.substring(equals + 1).trim());
+            if (left.equals("text()")) {
+                // true if any own text node matches
+                return node.texts.contains(expected);
+            }
+            return expected.equals(value(node, left));
+        }
+        if (predicate.startsWith("@")) {
+            return node.attributes.containsKey(predicate.substring(1));
+        }
+        throw new IllegalArgumentException("Predicate [" + predicate + "] is not supported");
+    }
+    
+    // string value of text(), ., @name or normalize-space(...) for a node
+    private static String value(Node node, String expression) {
+        if (expression.startsWith("@")) {
+            return node.attribute(expression.substring(1));
+        }
+        switch (expression) {
+            case "text()":
+                // XPath 1.0 takes the first node of a node-set
+                return node.texts.isEmpty() ? null : node.texts.get(0);
+            case ".":
+                return node.stringValue();
+            case "normalize-space()":
+            case "normalize-space(.)":
+                return node.stringValue().trim().replaceAll("\\s+", " ");
+            default:
+                throw new IllegalArgumentException("Expression " + expression + " is not supported");
+        }
+    }
+    
+    private static String literal(String quoted) {
+        if (quoted.length() >= 2 && (quoted.charAt(0) == '\'' || quoted.charAt(0) == '"')
+            && quoted.charAt(quoted.length() - 1) == quoted.charAt(0)) {
+            return quoted.substring(1, quoted.length() - 1);
+        }
+        throw new IllegalArgumentException("Expected a string literal: " + quoted);
+    }
+    
+    // index of the first delimiter outside quotes, brackets and parentheses, or the length
+    private static int scan(String s, int from, char delimiter) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (depth == 0 && c == delimiter) {
+                return i;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            }
+        }
+        return s.length();
+    }
+    
+    private static List<String> split(String s, String separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (depth == 0 && s.startsWith(separator, i)) {
+                parts.add(s.substring(start, i));
+                start = i + separator.length();
+                i = start - 1;
+            }
+        }
+        parts.add(s.substring(start));
+        return parts;
+    }
+    
+    // ========== CSS ==========
+    
+    /**
+     * One compound selector: tag plus at most one of #id, .class, [attr="value"] or :nth-of-type(n)
+     */
+    static final class Compound {
+        final String tag;
+        final String kind;
+        final String name;
+        final String value;
+        final int nth;
+        
+        private Compound(String tag, String kind, String name, String value, int nth) {
+            this.tag = tag;
+            this.kind = kind;
+            this.name = name;
+            this.value = value;
+            this.nth = nth;
+        }
+        
+        boolean stable() {
+            return kind.equals("id") || kind.equals("class") || kind.equals("attribute");
+        }
+        
+        boolean matches(Node node) {
+            if (!node.tag.equals(tag)) {
+                return false;
+            }
+            switch (kind) {
+                case "id":
+                    return value.equals(node.attribute("id"));
+                case "class":
+                    return classes(node).contains(value);
+                case "attribute":
+                    return value.equals(node.attribute(name));
+                case "nth":
+                    return node.typeIndex == nth;
+                default:
+                    return true;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            switch (kind) {
+                case "id":
+                    return tag + "#" + value;
+                case "class":
+                    return tag + "." + value;
+                case "attribute":
+                    return tag + "[" + name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]";
+                case "nth":
+                    return tag + ":nth-of-type(" + nth + ")";
+                default:
+                    return tag;
+            }
+        }
+    }
+    
+    /**
+     * Compounds joined by descendant (space) or child (>) combinators
+     */
+    static final class Selector {
+        final List<Compound> parts;
+        final List<Boolean> child;
+        
+        Selector(List<Compound> parts, List<Boolean> child) {
+            this.parts = parts;
+            this.child = child;
+        }
+        
+        boolean matches(Node node) {
+            return matches(node, parts.size() - 1);
+        }
+        
+        private boolean matches(Node node, int part) {
+            if (node == null || node.tag.equals("#document") || !parts.get(part).matches(node)) {
+                return false;
+            }
+            if (part == 0) {
+                return true;
+            }
+            if (child.get(part - 1)) {
+                return matches(node.parent, part - 1);
+            }
+            for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+                if (matches(ancestor, part - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(parts.get(0).toString());
+            for (int i = 1; i < parts.size(); i++) {
+                sb.append(child.get(i - 1) ? " > " : " ").append(parts.get(i));
+            }
+            return sb.toString();
+        }
+    }
+    
+    static int count(Dom dom, Selector selector) {
+        int matches = 0;
+        for (Node node : dom.nodes) {
+            if (selector.matches(node)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+    
+    private static boolean unique(Dom dom, Selector selector, Node target) {
+        if (!selector.matches(target)) {
+            return false;
+        }
+        for (Node node : dom.nodes) {
+            if (node != target && selector.matches(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static Set<String> classes(Node node) {
+        String value = node.attribute("class");
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return new LinkedHashSet<>(Arrays.asList(value.trim().split("\\s+")));
+    }
+    
+    /**
+     * Ways to select a node on its own, stable ones first
+     */
+    static List<Compound> compounds(Node node) {
+        List<Compound> keys = new ArrayList<>();
+        String id = node.attribute("id");
+        if (id != null && CSS_IDENTIFIER.matcher(id).matches() && !GENERATED_ID.matcher(id).matches()) {
+            keys.add(new Compound(node.tag, "id", "id", id, 0));
+        }
+        for (String attribute : STABLE_ATTRIBUTES) {
+            String value = node.attribute(attribute);
+            if (value != null && !value.isBlank() && value.length() <= 80) {
+                keys.add(new Compound(node.tag, "attribute", attribute, value, 0));
+            }
+        }
+        for (String cls : classes(node)) {
+            if (CSS_IDENTIFIER.matcher(cls).matches() && !STATE_CLASS.matcher(cls).matches()) {
+                keys.add(new Compound(node.tag, "class", "class", cls, 0));
+            }
+        }
+        keys.add(new Compound(node.tag, "tag", null, null, 0));
+        if (node.typeCount > 1) {
+            keys.add(new Compound(node.tag, "nth", null, null, node.typeIndex));
+        }
+        return keys;
+    }
+    
+    /**
+     * Shortest selector that matches only the target. Tries, in order: a stable compound on
+     * the target alone; a stable compound on an ancestor plus any compound on the target;
+     * a nth-of-type path up to the nearest ancestor with a stable unique compound; and
+     * finally a nth-of-type path from html.
+     */
+    static Selector compile(Dom dom, Node target) {
+        List<Compound> own = compounds(target);
+        List<Selector> found = new ArrayList<>();
+        for (Compound compound : own) {
+            if (compound.stable()) {
+                addIfUnique(dom, target, found, new Selector(List.of(compound), List.of()));
+            }
+        }
+        if (!found.isEmpty()) {
+            return shortest(found);
+        }
+        for (Node ancestor = target.parent; ancestor != null && ancestor != dom.document; ancestor = ancestor.parent) {
+            for (Compound anchor : compounds(ancestor)) {
+                if (!anchor.stable()) {
+                    continue;
+                }
+                for (Compound compound : own) {
+                    addIfUnique(dom, target, found, new Selector(List.of(anchor, compound), List.of(false)));
+                    if (ancestor == target.parent) {
+                        addIfUnique(dom, target, found, new Selector(List.of(anchor, compound), List.of(true)));
+                    }
+                }
+            }
+        }
+        if (!found.isEmpty()) {
+            return shortest(found);
+        }
+        LinkedList<Compound> path = new LinkedList<>();
+        path.add(positional(target));
+        for (Node ancestor = target.parent; ancestor != null && ancestor != dom.document; ancestor = ancestor.parent) {
+            for (Compound anchor : compounds(ancestor)) {
+                if (anchor.stable()) {
+                    List<Compound> parts = new ArrayList<>();
+                    parts.add(anchor);
+                    parts.addAll(path);
+                    addIfUnique(dom, target, found, new Selector(parts, Collections.nCopies(path.size(), true)));
+                }
+            }
+            if (!found.isEmpty()) {
+                return shortest(found);
+            }
+            path.addFirst(positional(ancestor));
+        }
+        return new Selector(path, Collections.nCopies(path.size() - 1, true));
+    }
+    
+    private static Compound positional(Node node) {
+        return node.typeCount > 1
+            ? new Compound(node.tag, "nth", null, null, node.typeIndex)
+            : new Compound(node.tag, "tag", null, null, 0);
+    }
+    
+    private static void addIfUnique(Dom dom, Node target, List<Selector> found, Selector selector) {
+        if (unique(dom, selector, target)) {
+            found.add(selector);
+        }
+    }
+    
+    private static Selector shortest(List<Selector> selectors) {
+        Selector best = selectors.get(0);
+        for (Selector selector : selectors) {
+            if (selector.toString().length() < best.toString().length()) {
+                best = selector;
+            }
+        }
+        return best;
+    }
+    
+    // ========== REPORT ==========
+    
+    /**
+     * One compiled locator
+     */
+    static final class Row {
+        final String path;
+        final String xpath;
+        int xpathMatches;
+        Selector selector;
+        int cssMatches;
+        double xpathMicros;
+        double cssMicros;
+        String note = "";
+        // Chromium counts and timings, or -1 without --browser
+        int browserXPathMatches = -1;
+        int browserCssMatches = -1;
+        double browserXPathMicros = -1;
+        double browserCssMicros = -1;
+        
+        Row(String path, String xpath) {
+            this.path = path;
+            this.xpath = xpath;
+        }
+    }
+    
+    static List<Row> compileAll(Dom dom, List<LocatorRegistry.Entry> entries, int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("runs must be at least 1: " + runs);
+        }
+        List<Row> rows = new ArrayList<>();
+        for (LocatorRegistry.Entry entry : entries) {
+            Row row = new Row(entry.path(), entry.by.toString().substring("By.xpath: ".length()));
+            rows.add(row);
+            List<Node> matches;
+            try {
+                matches = xpath(dom, row.xpath);
+            } catch (IllegalArgumentException e) {
+                row.note = e.getMessage();
+                continue;
+            }
+            row.xpathMatches = matches.size();
+            row.xpathMicros = median(runs, () -> xpath(dom, row.xpath));
+            if (matches.isEmpty()) {
+                row.note = "no match in snapshot";
+                continue;
+            }
+            if (matches.size() > 1) {
+                row.note = "XPath matches " + matches.size() + " elements; compiled for the first";
+            }
+            row.selector = compile(dom, matches.get(0));
+            row.cssMatches = count(dom, row.selector);
+            row.cssMicros = median(runs, () -> count(dom, row.selector));
+        }
+        return rows;
+    }
+    
+    // as many untimed calls as timed ones, to warm up the JIT
+    private static double median(int runs, Runnable work) {
+        for (int i = 0; i < runs; i++) {
+            work.run();
+        }
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            work.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[runs / 2] / 1000.0;
+    }
+    
+    // ([xpath, css, iterations]) -> [xpathCount, cssCount, xpathMicros, cssMicros]
+    static final String BROWSER_TIMING_SCRIPT = "([xpath, css, iterations]) => {" +
+        "const xpathCount = document.evaluate(xpath, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null).snapshotLength;" +
+        "const cssCount = document.querySelectorAll(css).length;" +
+        "let start = performance.now();" +
+        "for (let i = 0; i < iterations; i++) {" +
+        "  document.evaluate(xpath, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+        "}" +
+        "const xpathMicros = (performance.now() - start) * 1000 / iterations;" +
+        "start = performance.now();" +
+        "for (let i = 0; i < iterations; i++) {" +
+        "  document.querySelectorAll(css);" +
+        "}" +
+        "const cssMicros = (performance.now() - start) * 1000 / iterations;" +
+        "return [xpathCount, cssCount, xpathMicros, cssMicros];" +
+    "}";
+    
+    static void timeInBrowser(String html, List<Row> rows, int runs) {
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            Page page = browser.newContext(new Browser.NewContextOptions().setJavaScriptEnabled(false)).newPage();
+            // The snapshot's own scripts stay off so they cannot change the DOM being timed; evaluate still runs
+            page.setContent(html);
+            for (Row row : rows) {
+                if (row.selector == null) {
+                    continue;
+                }
+                List<?> result = (List<?>) page.evaluate(BROWSER_TIMING_SCRIPT,
+                    List.of(row.xpath, row.selector.toString(), Math.max(runs, 100)));
+                row.browserXPathMatches = ((Number) result.get(0)).intValue();
+                row.browserCssMatches = ((Number) result.get(1)).intValue();
+                row.browserXPathMicros = ((Number) result.get(2)).doubleValue();
+                row.browserCssMicros = ((Number) result.get(3)).doubleValue();
+            }
+            browser.close();
+        }
+    }
+    
+    static void print(List<Row> rows, boolean browser) {
+        for (Row row : rows) {
+            System.out.println(row.path);
+            System.out.println("  xpath: " + row.xpath);
+            if (row.selector == null) {
+                System.out.println("  " + row.note);
+                continue;
+            }
+            System.out.println("  css:   " + row.selector);
+            System.out.printf("  snapshot  xpath %d match(es) %10.1f us   css %d match(es) %10.1f us%n",
+                row.xpathMatches, row.xpathMicros, row.cssMatches, row.cssMicros);
+            if (browser) {
+                System.out.printf("  chromium  xpath %d match(es) %10.1f us   css %d match(es) %10.1f us%n",
+                    row.browserXPathMatches, row.browserXPathMicros, row.browserCssMatches, row.browserCssMicros);
+            }
+            if (!row.note.isEmpty()) {
+                System.out.println("  note:  " + row.note);
+            }
+        }
+        
+        System.out.println();
+        System.out.println("Suggested locators:");
+        for (Row row : rows) {
+            if (row.selector != null && row.cssMatches == 1) {
+                String name = row.path.substring(row.path.lastIndexOf('/') + 1) + "_CSS";
+                if (!LocatorRegistry.find(name).isEmpty()) {
+                    name = name.replace("_CSS", "_SCOPED_CSS");
+                }
+                System.out.println("    public static final By " + name + " = By.cssSelector(\""
+                    + row.selector.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\");");
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SelectorCompiler <snapshot.html> [--all] [--page <LocatorClass>] [--runs N] [--browser]");
+            System.exit(1);
+        }
+        Path snapshot = Path.of(args[0]);
+        boolean all = false;
+        boolean browser = false;
+        String page = null;
+        int runs = 50;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--all":
+                    all = true;
+                    break;
+                case "--browser":
+                    browser = true;
+                    break;
+                case "--page":
+                    page = args[++i];
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    if (runs < 1) {
+                        System.err.println("--runs must be at least 1");
+                        System.exit(1);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        
+        List<LocatorRegistry.Entry> entries = new ArrayList<>();
+        for (LocatorRegistry.Entry entry : LocatorRegistry.entries()) {
+            String by = entry.by.toString();
+            if (!by.startsWith("By.xpath: ") || page != null && !entry.page.equals(page)) {
+                continue;
+            }
+            if (all || POSITIONAL_STEP.matcher(by).find()) {
+                entries.add(entry);
+            }
+        }
+        
+        String html = Files.readString(snapshot, StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        Dom dom;
+        try (Reader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            dom = Dom.parse(reader);
+        }
+        System.out.printf("Parsed %s: %d elements in %d ms%n%n", snapshot, dom.nodes.size(), (System.nanoTime() - start) / 1_000_000);
+        
+        List<Row> rows = compileAll(dom, entries, runs);
+        if (browser) {
+            timeInBrowser(html, rows, runs);
+        }
+        print(rows, browser);
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Seeds a crawl from sitemap.xml files instead of only the links reachable from the start page.
+ * Sitemaps and sitemap indexes are parsed with StAX straight off the HTTP stream,
+ * gzip-compressed or not, so a sitemap never has to fit in memory. Parsing runs on its
+ * own thread and hands each URL to the sink as soon as its loc element is read.
+ * Only a sitemap named by the caller may be a local file; locations read from
+ * robots.txt or a sitemap index must be http(s).
+ */
+public class SitemapSeeder implements Closeable {
+    
+    /** Sitemap location that means "discover from robots.txt, else /sitemap.xml" */
+    public static final String AUTO = "auto";
+    
+    // Sitemap indexes may point at other indexes; stop following them after this many levels
+    private static final int MAX_INDEX_DEPTH = 3;
+    
+    private final HttpClient client;
+    private final Duration timeout;
+    private final XMLInputFactory xmlFactory;
+    private final AtomicLong urlCount = new AtomicLong();
+    private final AtomicLong sitemapCount = new AtomicLong();
+    private volatile Thread worker;
+    
+    public SitemapSeeder(Duration timeout) {
+        this.client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(timeout)
+            .build();
+        this.timeout = timeout;
+        this.xmlFactory = XMLInputFactory.newFactory();
+        xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+    
+    /**
+     * Parse the sitemaps on a background thread, passing every page URL to the sink.
+     * The sink returns false to stop seeding, e.g. once the page budget is used up.
+     */
+    public void start(String seedUrl, List<String> locations, Predicate<String> sink) {
+        worker = Thread.ofPlatform().daemon().name("sitemap-seeder").start(() -> {
+            long start = System.nanoTime();
+            try {
+                for (String location : locations) {
+                    boolean discovered = AUTO.equals(location);
+                    List<String> sitemaps = discovered ? discover(seedUrl) : List.of(location);
+                    for (String sitemap : sitemaps) {
+                        if (!parse(sitemap, sink, 0, !discovered)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } finally {
+                System.out.println("[sitemap] " + urlCount.get() + " URLs from " + sitemapCount.get()
+                    + " sitemaps in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        });
+    }
+    
+    public boolean isRunning() {
+        Thread current = worker;
+        return current != null && current.isAlive();
+    }
+    
+    /**
+     * Wait up to the timeout for more URLs; returns false once seeding has finished
+     */
+    public boolean await(Duration wait) throws InterruptedException {
+        Thread current = worker;
+        return current != null && !current.join(wait);
+    }
+    
+    public long urlCount() {
+        return urlCount.get();
+    }
+    
+    /**
+     * Parse one sitemap (URL or local path) or sitemap index, following index entries;
+     * returns false if the sink asked to stop
+     */
+    public boolean parse(String location, Predicate<String> sink) throws InterruptedException {
+        return parse(location, sink, 0, true);
+    }
+    
+    private boolean parse(String location, Predicate<String> sink, int indexDepth, boolean allowLocal) throws InterruptedException {
+        List<String> children = new ArrayList<>();
+        try (InputStream in = open(location, allowLocal)) {
+            sitemapCount.incrementAndGet();
+            XMLStreamReader reader = xmlFactory.createXMLStreamReader(in);
+            try {
+                boolean index = false;
+                int level = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        level--;
+                        continue;
+                    }
+                    if (event != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    level++;
+                    if (level == 1) {
+                        index = "sitemapindex".equals(reader.getLocalName());
+                    } else if (level == 3 && "loc".equals(reader.getLocalName())) {
+                        // Only <urlset><url><loc> and <sitemapindex><sitemap><loc>; image and video
+                        // extensions nest their own loc elements deeper
+                        String loc = reader.getElementText().trim();
+                        level--;
+                        if (loc.isEmpty()) {
+                            continue;
+                        }
+                        if (index) {
+                            // Index entries are small; collect them so the index stream is not held open
+                            children.add(loc);
+                        } else {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new InterruptedException();
+                            }
+                            urlCount.incrementAndGet();
+                            if (!sink.test(loc)) {
+                                return false;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | IllegalArgumentException e) {
+            // IllegalArgumentException: a loc that is not a valid URI
+            System.err.println("[sitemap] Skipping " + location + ": " + e.getMessage());
+            return true;
+        }
+        
+        if (indexDepth >= MAX_INDEX_DEPTH) {
+            if (!children.isEmpty()) {
+                System.err.println("[sitemap] Not following " + children.size() + " nested sitemaps in " + location);
+            }
+            return true;
+        }
+        for (String child : children) {
+            if (!parse(child, sink, indexDepth + 1, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Open a sitemap from a URL or, if allowed, a local path, transparently gunzipping it
+     */
+    private InputStream open(String location, boolean allowLocal) throws IOException, InterruptedException {
+        InputStream raw;
+        if (location.regionMatches(true, 0, "http://", 0, 7) || location.regionMatches(true, 0, "https://", 0, 8)) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(location))
+                .timeout(timeout)
+                .GET()
+                .build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            raw = response.body();
+        } else if (!allowLocal) {
+            throw new IOException("not an http(s) sitemap location");
+        } else {
+            raw = Files.newInputStream(location.startsWith("file:") ? Path.of(URI.create(location)) : Path.of(location));
+        }
+        
+        // Servers label .xml.gz inconsistently, so sniff the gzip magic bytes instead
+        BufferedInputStream in = new BufferedInputStream(raw, 1 << 16);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return in;
+    }
+    
+    /**
+     * Sitemaps listed in the site's robots.txt, or /sitemap.xml when it lists none
+     */
+    List<String> discover(String seedUrl) throws InterruptedException {
+        URI seed = URI.create(seedUrl);
+        String root = seed.getScheme() + "://" + seed.getRawAuthority();
+        List<String> sitemaps = new ArrayList<>();
+        try (InputStream in = open(root + "/robots.txt", false);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.regionMatches(true, 0, "Sitemap:", 0, 8)) {
+                    String sitemap = line.substring(8).trim();
+                    if (!sitemap.isEmpty()) {
+                        sitemaps.add(sitemap);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[sitemap] No robots.txt at " + root + ": " + e.getMessage());
+        }
+        if (sitemaps.isEmpty()) {
+            sitemaps.add(root + "/sitemap.xml");
+        }
+        return sitemaps;
+    }
+    
+    @Override
+    public void close() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * FIFO queue of crawl entries that keeps at most a fixed number in memory.
+ * Once the in-memory buffer is full, new entries are appended to segment
+ * files in the spill directory and read back in order when the buffer
+ * drains, so a frontier of any size costs bounded heap.
+ */
+public class SpillingQueue implements Closeable {
+    
+    public static class Entry {
+        public final String url;
+        public final int depth;
+        
+        public Entry(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+    
+    private static final int SEGMENT_ENTRIES = 100_000;
+    
+    private final Path directory;
+    private final int memoryCapacity;
+    private final Deque<Entry> memory = new ArrayDeque<>();
+    private final Deque<Path> segments = new ArrayDeque<>();
+    
+    private DataOutputStream writer;
+    private Path writerSegment;
+    private int writerEntries;
+    private DataInputStream reader;
+    private long spilled;
+    private int segmentCounter;
+    
+    public SpillingQueue(Path directory, int memoryCapacity) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.memoryCapacity = memoryCapacity;
+    }
+    
+    public synchronized void add(String url, int depth) {
+        try {
+            // Once anything has spilled, later entries must follow it to keep FIFO order
+            if (spilled == 0 && memory.size() < memoryCapacity) {
+                memory.addLast(new Entry(url, depth));
+                return;
+            }
+            if (writer == null || writerEntries >= SEGMENT_ENTRIES) {
+                rollSegment();
+            }
+            byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+            writer.writeInt(depth);
+            writer.writeInt(bytes.length);
+            writer.write(bytes);
+            writerEntries++;
+            spilled++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill frontier to " + directory, e);
+        }
+    }
+    
+    /**
+     * Remove the oldest entry, or return null when the queue is empty
+     */
+    public synchronized Entry poll() {
+        if (memory.isEmpty() && spilled > 0) {
+            try {
+                refill();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read spilled frontier from " + directory, e);
+            }
+        }
+        return memory.pollFirst();
+    }
+    
+    public synchronized long size() {
+        return memory.size() + spilled;
+    }
+    
+    public synchronized long spilledCount() {
+        return spilled;
+    }
+    
+    private void refill() throws IOException {
+        while (memory.size() < memoryCapacity && spilled > 0) {
+            if (reader == null) {
+                if (segments.isEmpty()) {
+                    closeWriter();
+                }
+                reader = new DataInputStream(new BufferedInputStream(Files.newInputStream(segments.peekFirst()), 1 << 16));
+            }
+            try {
+                int depth = reader.readInt();
+                byte[] bytes = new byte[reader.readInt()];
+                reader.readFully(bytes);
+                memory.addLast(new Entry(new String(bytes, StandardCharsets.UTF_8), depth));
+                spilled--;
+            } catch (EOFException e) {
+                reader.close();
+                reader = null;
+                Files.deleteIfExists(segments.pollFirst());
+            }
+        }
+    }
+    
+    private void rollSegment() throws IOException {
+        closeWriter();
+        writerSegment = directory.resolve("frontier-" + (segmentCounter++) + ".seg");
+        writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(writerSegment), 1 << 16));
+        writerEntries = 0;
+    }
+    
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            segments.addLast(writerSegment);
+            writer = null;
+            writerSegment = null;
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        closeWriter();
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+        segments.clear();
+        memory.clear();
+        spilled = 0;
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // directory is shared with other files; leave it
+        }
+    }
+}
@@ -0,0 +1,458 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Browser-free link extraction for server-rendered pages.
+ * Fetches the page with HttpClient and streams it through HtmlTokenizer,
+ * producing the same text, href, target and XPath values as the
+ * FetchLinks extraction script. Pages that look like they need
+ * JavaScript are flagged so the caller can fall back to Playwright.
+ */
+public class StaticLinkExtractor {
+    
+    public static class Result {
+        public final String url;
+        public final int status;
+        public final List<FetchLinks.LinkInfo> links;
+        public final boolean needsBrowser;
+        public final String reason;
+        // Set when the server answered 304 to the conditional request; links are then empty
+        public boolean notModified;
+        // Retry-After of a 429 or 503 answer in milliseconds, -1 if absent
+        public long retryAfterMs = -1;
+        public RecrawlStore.Validators validators;
+        
+        Result(String url, int status, List<FetchLinks.LinkInfo> links, boolean needsBrowser, String reason) {
+            this.url = url;
+            this.status = status;
+            this.links = links;
+            this.needsBrowser = needsBrowser;
+            this.reason = reason;
+        }
+    }
+    
+    // Mount points left empty by client-rendered single page apps
+    private static final Set<String> SPA_ROOT_IDS = Set.of("root", "app", "__next", "__nuxt", "___gatsby", "svelte");
+    
+    static final Set<String> HEAD_ELEMENTS = Set.of(
+        "base", "link", "meta", "noscript", "script", "style", "template", "title");
+    
+    // Start tags that implicitly close an open <p>
+    static final Set<String> CLOSES_PARAGRAPH = Set.of(
+        "address", "article", "aside", "blockquote", "details", "div", "dl", "fieldset",
+        "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr",
+        "main", "menu", "nav", "ol", "p", "pre", "section", "table", "ul");
+    
+    private final HttpClient client;
+    private final Duration timeout;
+    private final int minAnchors;
+    private final int minTextChars;
+    
+    public StaticLinkExtractor(Duration timeout, int minAnchors) {
+        this(HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(timeout)
+            .build(), timeout, minAnchors);
+    }
+    
+    public StaticLinkExtractor(HttpClient client, Duration timeout, int minAnchors) {
+        this.client = client;
+        this.timeout = timeout;
+        this.minAnchors = minAnchors;
+        this.minTextChars = 200;
+    }
+    
+    /**
+     * Fetch the URL and extract its links, or report why a browser is needed
+     */
+    public Result extract(String url) throws IOException, InterruptedException {
+        return extract(url, null);
+    }
+    
+    /**
+     * Fetch the URL conditionally against validators from a previous run.
+     * The result carries the new validators, including a SHA-256 of the body.
+     */
+    public Result extract(String url, RecrawlStore.Validators previous) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(timeout)
+            .header("Accept", "text/html,application/xhtml+xml")
+            .GET();
+        if (previous != null && previous.etag != null) {
+            builder.header("If-None-Match", previous.etag);
+        }
+        if (previous != null && previous.lastModified != null) {
+            builder.header("If-Modified-Since", previous.lastModified);
+        }
+        HttpResponse<InputStream> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        
+        if (response.statusCode() == 304) {
+            response.body().close();
+            Result result = new Result(url, 304, Collections.emptyList(), false, "not modified");
+            result.notModified = true;
+            result.validators = new RecrawlStore.Validators(
+                etag != null ? etag : previous.etag,
+                lastModified != null ? lastModified : previous.lastModified,
+                previous.contentHash);
+            return result;
+        }
+        
+        int status = response.statusCode();
+        if (status >= 400) {
+            // error pages are not extracted; the caller decides whether to retry
+            response.body().close();
+            Result result = new Result(url, status, Collections.emptyList(), false, "HTTP " + status);
+            result.retryAfterMs = response.headers().firstValue("Retry-After").map(StaticLinkExtractor::retryAfterMs).orElse(-1L);
+            return result;
+        }
+        
+        String contentType = response.headers().firstValue("Content-Type").orElse("text/html");
+        if (!contentType.contains("html")) {
+            response.body().close();
+            return new Result(url, response.statusCode(), Collections.emptyList(), false, "not HTML: " + contentType);
+        }
+        
+        MessageDigest digest = sha256();
+        Result result;
+        try (Reader reader = new InputStreamReader(new DigestInputStream(response.body(), digest), charsetOf(contentType))) {
+            result = parse(url, response.statusCode(), response.uri(), reader);
+        }
+        result.validators = new RecrawlStore.Validators(etag, lastModified, HexFormat.of().formatHex(digest.digest()));
+        return result;
+    }
+    
+    // Retry-After is either delay-seconds or an HTTP date
+    static long retryAfterMs(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                long at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Extract links from an HTML document already being read
+     */
+    Result parse(String url, int status, URI documentUri, Reader reader) throws IOException {
+        Collector collector = new Collector(documentUri);
+        HtmlTokenizer tokenizer = new HtmlTokenizer(reader);
+        HtmlTokenizer.TokenType token;
+        while ((token = tokenizer.next()) != HtmlTokenizer.TokenType.EOF) {
+            switch (token) {
+                case START_TAG:
+                    collector.startTag(tokenizer.tagName(), tokenizer.attributes(), tokenizer.selfClosing());
+                    break;
+                case END_TAG:
+                    collector.endTag(tokenizer.tagName());
+                    break;
+                case TEXT:
+                    collector.text(tokenizer.text());
+                    break;
+                default:
+                    break;
+            }
+        }
+        collector.finish();
+        
+        List<FetchLinks.LinkInfo> links = collector.links;
+        if (collector.anchorCount < minAnchors) {
+            return new Result(url, status, links, true, "only " + collector.anchorCount + " anchors");
+        }
+        if (collector.spaShell && collector.bodyTextChars < minTextChars) {
+            return new Result(url, status, links, true, "single page app shell");
+        }
+        return new Result(url, status, links, false, null);
+    }
+    
+    private static Charset charsetOf(String contentType) {
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if (index >= 0) {
+            String name = contentType.substring(index + 8).replace("\"", "").split("[;\\s]")[0];
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                // fall through to the HTML default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+    
+    /**
+     * Open element with the positional XPath the browser script would produce
+     */
+    private static class Frame {
+        final String tag;
+        final String xpath;
+        final Map<String, Integer> childCounts = new HashMap<>();
+        
+        Frame(String tag, String xpath) {
+            this.tag = tag;
+            this.xpath = xpath;
+        }
+    }
+    
+    /**
+     * Tracks the open-element stack and builds LinkInfo for each anchor as it closes
+     */
+    private static class Collector {
+        // Stands in for a br inside anchor text until whitespace is collapsed
+        private static final char LINE_BREAK = '\u0000';
+        
+        final List<FetchLinks.LinkInfo> links = new ArrayList<>();
+        final Deque<Frame> stack = new ArrayDeque<>();
+        URI baseUri;
+        boolean inBody;
+        boolean spaShell;
+        int anchorCount;
+        int bodyTextChars;
+        int rawTextDepth;
+        
+        // Anchor being collected, if any
+        Frame anchor;
+        String anchorHref;
+        String anchorTarget;
+        final StringBuilder anchorText = new StringBuilder();
+        
+        Collector(URI documentUri) {
+            this.baseUri = documentUri;
+            stack.push(new Frame("#document", ""));
+        }
+        
+        void startTag(String tag, Map<String, String> attributes, boolean selfClosing) {
+            if ((tag.equals("body") && inBody) || (tag.equals("html") && stack.size() > 1)) {
+                return;
+            }
+            if (tag.equals("base") && attributes.containsKey("href") && !inBody) {
+                try {
+                    baseUri = new URI(resolve(baseUri, attributes.get("href")));
+                } catch (URISyntaxException e) {
+                    // keep the document URI
+                }
+            }
+            if (!inBody && !tag.equals("html") && !tag.equals("head") && !tag.equals("body")
+                && !HEAD_ELEMENTS.contains(tag)) {
+                openBody();
+            }
+            closeImplied(tag);
+            
+            Frame parent = stack.peek();
+            int index = parent.childCounts.merge(tag, 1, Integer::sum);
+            String id = attributes.get("id");
+            String xpath;
+            if (id != null && !id.isEmpty()) {
+                xpath = "//*[@id=\"" + id + "\"]";
+                if (SPA_ROOT_IDS.contains(id)) {
+                    spaShell = true;
+                }
+            } else if (tag.equals("html")) {
+                xpath = "/html";
+            } else if (tag.equals("head")) {
+                xpath = "/html/head";
+            } else if (tag.equals("body")) {
+                xpath = "/html/body";
+            } else {
+                xpath = parent.xpath + "/" + tag + "[" + index + "]";
+            }
+            if (attributes.containsKey("ng-app") || attributes.containsKey("ng-version")
+                || attributes.containsKey("data-reactroot")) {
+                spaShell = true;
+            }
+            if (tag.equals("body")) {
+                inBody = true;
+            }
+            
+            Frame frame = new Frame(tag, xpath);
+            if (tag.equals("a")) {
+                anchorCount++;
+                anchor = frame;
+                anchorHref = attributes.get("href");
+                anchorTarget = attributes.get("target");
+                anchorText.setLength(0);
+            } else if (tag.equals("br") && anchor != null) {
+                anchorText.append(LINE_BREAK);
+            }
+            if (HtmlTokenizer.VOID_ELEMENTS.contains(tag) || selfClosing) {
+                return;
+            }
+            if (tag.equals("script") || tag.equals("style") || tag.equals("template")) {
+                rawTextDepth++;
+            }
+            stack.push(frame);
+        }
+        
+        void endTag(String tag) {
+            for (Frame frame : stack) {
+                if (frame.tag.equals(tag)) {
+                    popThrough(frame);
+                    return;
+                }
+                if (frame.tag.equals("#document")) {
+                    return;
+                }
+            }
+        }
+        
+        void text(String text) {
+            if (rawTextDepth > 0) {
+                return;
+            }
+            if (inBody) {
+                bodyTextChars += text.trim().length();
+            }
+            if (anchor != null) {
+                anchorText.append(text);
+            }
+        }
+        
+        void finish() {
+            while (stack.size() > 1) {
+                pop();
+            }
+        }
+        
+        private void openBody() {
+            while (stack.size() > 1 && !stack.peek().tag.equals("html")) {
+                pop();
+            }
+            if (stack.size() == 1) {
+                stack.peek().childCounts.merge("html", 1, Integer::sum);
+                stack.push(new Frame("html", "/html"));
+            }
+            stack.peek().childCounts.merge("body", 1, Integer::sum);
+            stack.push(new Frame("body", "/html/body"));
+            inBody = true;
+        }
+        
+        private void closeImplied(String tag) {
+            String top = stack.peek().tag;
+            if (tag.equals("a") && anchor != null) {
+                popThrough(anchor);
+            } else if (top.equals("p") && CLOSES_PARAGRAPH.contains(tag)) {
+                pop();
+            } else if (tag.equals("li") && top.equals("li")) {
+                pop();
+            } else if ((tag.equals("dt") || tag.equals("dd")) && (top.equals("dt") || top.equals("dd"))) {
+                pop();
+            } else if ((tag.equals("td") || tag.equals("th")) && (top.equals("td") || top.equals("th"))) {
+                pop();
+            } else if (tag.equals("tr") && (top.equals("td") || top.equals("th") || top.equals("tr"))) {
+                // A stray cell with no open row has nothing to close
+                Frame row = find("tr");
+                if (row != null) {
+                    popThrough(row);
+                }
+            } else if (tag.equals("option") && top.equals("option")) {
+                pop();
+            }
+        }
+        
+        private Frame find(String tag) {
+            for (Frame frame : stack) {
+                if (frame.tag.equals(tag)) {
+                    return frame;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Pop frames up to and including the target, never the #document root
+         */
+        private void popThrough(Frame target) {
+            while (stack.size() > 1 && pop() != target) {
+                // keep popping
+            }
+        }
+        
+        private Frame pop() {
+            Frame frame = stack.pop();
+            if (frame.tag.equals("script") || frame.tag.equals("style") || frame.tag.equals("template")) {
+                rawTextDepth--;
+            }
+            if (frame == anchor) {
+                closeAnchor();
+            }
+            return frame;
+        }
+        
+        private void closeAnchor() {
+            if (anchorHref != null) {
+                String href = resolve(baseUri, anchorHref);
+                String target = anchorTarget == null || anchorTarget.isEmpty() ? "_self" : anchorTarget;
+                links.add(new FetchLinks.LinkInfo(innerText(anchorText), href, target, anchor.xpath));
+            }
+            anchor = null;
+        }
+        
+        /**
+         * Approximate innerText: collapse whitespace runs and turn br markers into line breaks
+         */
+        private static String innerText(CharSequence raw) {
+            StringBuilder out = new StringBuilder(raw.length());
+            boolean space = false;
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (c == LINE_BREAK) {
+                    out.append('\n');
+                    space = false;
+                } else if (Character.isWhitespace(c) || c == '\u00a0') {
+                    space = out.length() > 0 && out.charAt(out.length() - 1) != '\n';
+                } else {
+                    if (space) {
+                        out.append(' ');
+                        space = false;
+                    }
+                    out.append(c);
+                }
+            }
+            return out.toString().trim();
+        }
+        
+        /**
+         * Resolve an href the way HTMLAnchorElement.href does, keeping it verbatim if it cannot be parsed
+         */
+        private static String resolve(URI base, String href) {
+            String trimmed = href.trim();
+            try {
+                if (trimmed.isEmpty()) {
+                    return new URI(base.getScheme(), base.getSchemeSpecificPart(), null).toString();
+                }
+                return base.resolve(new URI(trimmed.replace(" ", "%20"))).toString();
+            } catch (URISyntaxException e) {
+                return trimmed;
+            }
+        }
+    }
+}
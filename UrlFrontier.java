@@ -0,0 +1,101 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Crawl frontier with constant heap use: an off-heap Bloom filter in front
+ * of an exact off-heap URL set decides whether a URL was seen, and unseen
+ * URLs go to a disk-spilling FIFO queue.
+ *
+ * The Bloom filter answers most "new URL" checks without touching the exact
+ * set's arena. With exact deduplication disabled the filter alone decides,
+ * trading a configurable false-positive rate (URLs wrongly skipped) for not
+ * storing URLs at all. Large frontiers need -XX:MaxDirectMemorySize raised
+ * to cover the table and arena.
+ */
+public class UrlFrontier implements Closeable {
+    
+    public static class Options {
+        public long expectedUrls = 1_000_000;
+        public double falsePositiveRate = 0.01;
+        public boolean exact = true;
+        public int memoryQueueCapacity = 50_000;
+        // Defaults to a fresh temporary directory per frontier
+        public Path spillDirectory;
+    }
+    
+    private static final long SECOND_SEED = 0x9E3779B97F4A7C15L;
+    
+    private final OffHeapBloomFilter bloom;
+    private final OffHeapUrlSet exactSet;
+    private final SpillingQueue queue;
+    private long seen;
+    
+    public UrlFrontier(Options options) throws IOException {
+        this.bloom = new OffHeapBloomFilter(options.expectedUrls, options.falsePositiveRate);
+        this.exactSet = options.exact ? new OffHeapUrlSet(options.expectedUrls) : null;
+        this.queue = new SpillingQueue(options.spillDirectory != null
+            ? options.spillDirectory
+            : Files.createTempDirectory("fetchlinks-frontier"), options.memoryQueueCapacity);
+    }
+    
+    /**
+     * Queue the URL unless it was seen before; returns true if it was queued
+     */
+    public boolean offer(String url, int depth) {
+        if (!markSeen(url)) {
+            return false;
+        }
+        queue.add(url, depth);
+        return true;
+    }
+    
+    /**
+     * Record the URL as seen without queueing it; returns true if it was new
+     */
+    public synchronized boolean markSeen(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        long h1 = OffHeapBloomFilter.Hashing.hash64(bytes, 0);
+        long h2 = OffHeapBloomFilter.Hashing.hash64(bytes, SECOND_SEED);
+        boolean definitelyNew = bloom.put(h1, h2);
+        boolean added;
+        if (exactSet == null) {
+            added = definitelyNew;
+        } else if (definitelyNew) {
+            exactSet.insertAbsent(bytes, h1);
+            added = true;
+        } else {
+            added = exactSet.add(bytes, h1);
+        }
+        if (added) {
+            seen++;
+        }
+        return added;
+    }
+    
+    /**
+     * Queue a URL that was already seen again, e.g. to retry it after the host throttled it
+     */
+    public void requeue(String url, int depth) {
+        queue.add(url, depth);
+    }
+    
+    public SpillingQueue.Entry poll() {
+        return queue.poll();
+    }
+    
+    public long pending() {
+        return queue.size();
+    }
+    
+    public synchronized long seenCount() {
+        return seen;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        queue.close();
+    }
+}
@@ -0,0 +1,114 @@
+import com.microsoft.playwright.*;
+import java.util.*;
+
+/**
+ * Compares page.evaluate() time of the previous per-anchor getXPath script
+ * against the single-pass FetchLinks.EXTRACT_LINKS_SCRIPT on a synthetic
+ * mega-menu page of about 50k nodes. The FetchLinks timing includes
+ * decoding its compact payload into LinkInfo.
+ *
+ * Usage: XPathScriptBenchmark [nodeCount] [iterations]
+ */
+public class XPathScriptBenchmark {
+    
+    // Original script: walks to the root and rescans siblings for every anchor
+    static final String PER_ANCHOR_SCRIPT = "() => {" +
+        "function getXPath(element) {" +
+        "  if (element.id) return '//*[@id=\"' + element.id + '\"]';" +
+        "  if (element === document.body) return '/html/body';" +
+        "  let ix = 0;" +
+        "  const siblings = element.parentNode.childNodes;" +
+        "  for (let i = 0; i < siblings.length; i++) {" +
+        "    const sibling = siblings[i];" +
+        "    if (sibling === element) {" +
+        "      return getXPath(element.parentNode) + '/' + element.tagName.toLowerCase() + '[' + (ix + 1) + ']';" +
+        "    }" +
+        "    if (sibling.nodeType === 1 && sibling.tagName === element.tagName) {" +
+        "      ix++;" +
+        "    }" +
+        "  }" +
+        "}" +
+        "const anchors = Array.from(document.querySelectorAll('a'));" +
+        "return anchors.map(anchor => ({" +
+        "  text: anchor.innerText.trim()," +
+        "  href: anchor.href," +
+        "  target: anchor.target || '_self'," +
+        "  xpath: getXPath(anchor)" +
+        "})).filter(link => link.href);" +
+    "}";
+    
+    public static void main(String[] args) {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String fixture = megaMenuFixture(nodeCount);
+        
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                .setHeadless(true));
+            Page page = browser.newContext().newPage();
+            page.setContent(fixture);
+            
+            List<?> before = (List<?>) page.evaluate(PER_ANCHOR_SCRIPT);
+            List<FetchLinks.LinkInfo> after = FetchLinks.extractLinks(page);
+            if (before.size() != after.size()) {
+                System.err.println("Scripts disagree: " + before.size() + " vs " + after.size() + " links");
+                System.exit(1);
+            }
+            for (int i = 0; i < after.size(); i++) {
+                Object expected = ((Map<?, ?>) before.get(i)).get("xpath");
+                if (!after.get(i).xpath.equals(expected)) {
+                    System.err.println("Scripts disagree at link " + i + ": " + expected + " vs " + after.get(i).xpath);
+                    System.exit(1);
+                }
+            }
+            
+            System.out.println("Fixture: ~" + nodeCount + " nodes, " + after.size() + " links");
+            System.out.printf("per-anchor getXPath: %.1f ms (median of %d)%n",
+                medianMillis(page, PER_ANCHOR_SCRIPT, iterations), iterations);
+            System.out.printf("single-pass XPaths:  %.1f ms (median of %d)%n",
+                medianMillis(page, null, iterations), iterations);
+            
+            browser.close();
+        }
+    }
+    
+    /**
+     * Median wall time of evaluating the script, or of FetchLinks.extractLinks when script is null
+     */
+    private static double medianMillis(Page page, String script, int iterations) {
+        double[] samples = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            if (script == null) {
+                FetchLinks.extractLinks(page);
+            } else {
+                page.evaluate(script);
+            }
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[iterations / 2];
+    }
+    
+    /**
+     * Build a page with wide menus and a mega footer: many sibling anchors under deep wrappers
+     */
+    static String megaMenuFixture(int nodeCount) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><title>fixture</title></head><body>");
+        int nodes = 0;
+        int section = 0;
+        while (nodes < nodeCount) {
+            html.append("<div class='wrap'><div class='inner'><nav><ul>");
+            nodes += 4;
+            for (int item = 0; item < 60 && nodes < nodeCount; item++) {
+                html.append("<li><span>").append(item).append("</span><a href='/s")
+                    .append(section).append("/p").append(item).append("'>Link ")
+                    .append(item).append("</a></li>");
+                nodes += 5;
+            }
+            html.append("</ul></nav></div></div>");
+            section++;
+        }
+        return html.append("</body></html>").toString();
+    }
+}
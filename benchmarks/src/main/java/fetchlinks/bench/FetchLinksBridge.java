@@ -0,0 +1,223 @@
+package fetchlinks.bench;
+
+import java.io.Closeable;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.openqa.selenium.By;
+
+/**
+ * Entry points into the FetchLinks classes for the benchmarks.
+ * FetchLinks lives in the unnamed package, which named packages cannot import
+ * and JMH will not generate benchmarks in, so the methods under test are looked
+ * up once here and called through static final method handles that the JIT
+ * treats as constants.
+ */
+final class FetchLinksBridge {
+    
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    
+    static final Class<?> LINK_INFO = load("FetchLinks$LinkInfo");
+    
+    private static final MethodHandle NEW_LINK_INFO =
+        constructor(LINK_INFO, String.class, String.class, String.class, String.class);
+    private static final MethodHandle NEW_JSON_WRITER = constructor(load("LinkJsonWriter"), Path.class, boolean.class);
+    private static final MethodHandle WRITE_ALL = method(load("LinkSink"), "writeAll", List.class);
+    private static final MethodHandle CLOSE_SINK = method(Closeable.class, "close");
+    private static final MethodHandle NORMALIZE = method(load("LinkCrawler"), "normalize", String.class);
+    private static final MethodHandle MEGA_MENU_FIXTURE = method(load("XPathScriptBenchmark"), "megaMenuFixture", int.class);
+    private static final MethodHandle NEW_STATIC_EXTRACTOR = constructor(load("StaticLinkExtractor"), Duration.class, int.class);
+    private static final MethodHandle PARSE = method(load("StaticLinkExtractor"), "parse",
+        String.class, int.class, URI.class, Reader.class);
+    private static final MethodHandle RESULT_LINKS = getter(load("StaticLinkExtractor$Result"), "links");
+    private static final MethodHandle NEW_FRONTIER_OPTIONS = constructor(load("UrlFrontier$Options"));
+    private static final MethodHandle SET_EXPECTED_URLS = setter(load("UrlFrontier$Options"), "expectedUrls");
+    private static final MethodHandle SET_EXACT = setter(load("UrlFrontier$Options"), "exact");
+    private static final MethodHandle NEW_FRONTIER = constructor(load("UrlFrontier"), load("UrlFrontier$Options"));
+    private static final MethodHandle MARK_SEEN = method(load("UrlFrontier"), "markSeen", String.class);
+    private static final MethodHandle CLOSE_FRONTIER = method(load("UrlFrontier"), "close");
+    private static final MethodHandle SPAN_BY_TEXT = method(load("SalesforceLeadLocators"), "getSpanByText", String.class);
+    private static final MethodHandle FIELD_VALUE = method(load("SalesforceLeadDetailsFields"), "getFieldValue", String.class);
+    private static final MethodHandle SHARED_LOCATOR_CACHE = getter(load("LocatorCache"), "SHARED");
+    
+    private FetchLinksBridge() {
+    }
+    
+    static Object linkInfo(String text, String href, String target, String xpath) {
+        try {
+            return NEW_LINK_INFO.invoke(text, href, target, xpath);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    /**
+     * Stream the links through LinkJsonWriter into the file
+     */
+    static void writeJson(Path file, boolean pretty, List<Object> links) {
+        try {
+            Object writer = NEW_JSON_WRITER.invoke(file, pretty);
+            WRITE_ALL.invoke(writer, links);
+            CLOSE_SINK.invoke(writer);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static String normalize(String href) {
+        try {
+            return (String) NORMALIZE.invoke(href);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static String megaMenuFixture(int nodes) {
+        try {
+            return (String) MEGA_MENU_FIXTURE.invoke(nodes);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static Object staticExtractor() {
+        try {
+            return NEW_STATIC_EXTRACTOR.invoke(Duration.ofSeconds(30), 3);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    /**
+     * Run StaticLinkExtractor's tokenizer and XPath generation over the HTML; returns the LinkInfo list
+     */
+    static List<?> parse(Object extractor, String url, Reader html) {
+        try {
+            Object result = PARSE.invoke(extractor, url, 200, URI.create(url), html);
+            return (List<?>) RESULT_LINKS.invoke(result);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static AutoCloseable frontier(long expectedUrls, boolean exact) {
+        try {
+            Object options = NEW_FRONTIER_OPTIONS.invoke();
+            SET_EXPECTED_URLS.invoke(options, expectedUrls);
+            SET_EXACT.invoke(options, exact);
+            return (AutoCloseable) NEW_FRONTIER.invoke(options);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static boolean markSeen(Object frontier, String url) {
+        try {
+            return (boolean) MARK_SEEN.invoke(frontier, url);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static void closeFrontier(Object frontier) {
+        try {
+            CLOSE_FRONTIER.invoke(frontier);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static By spanByText(String text) {
+        try {
+            return (By) SPAN_BY_TEXT.invoke(text);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    static By fieldValue(String label) {
+        try {
+            return (By) FIELD_VALUE.invoke(label);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    /**
+     * LocatorCache.SHARED's toString: size, hits, misses, evictions
+     */
+    static String locatorCacheStats() {
+        try {
+            return String.valueOf(SHARED_LOCATOR_CACHE.invoke());
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+    
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("FetchLinks class not on the classpath: " + name, e);
+        }
+    }
+    
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor(parameters);
+            return LOOKUP.unreflectConstructor(accessible(constructor));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static MethodHandle method(Class<?> type, String name, Class<?>... parameters) {
+        try {
+            Method method = type.getDeclaredMethod(name, parameters);
+            return LOOKUP.unreflect(accessible(method));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static MethodHandle getter(Class<?> type, String name) {
+        try {
+            return LOOKUP.unreflectGetter(accessible(type.getDeclaredField(name)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static MethodHandle setter(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            return LOOKUP.unreflectSetter(accessible(field));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // FetchLinks keeps most helpers package-private; the benchmarks run on the classpath, so this is allowed
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+    
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,62 @@
+package fetchlinks.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic inputs shaped like FetchLinks output: menu links with deep XPaths and
+ * hrefs with the case, port, fragment and duplicate variations normalization has to handle
+ */
+final class Fixtures {
+    
+    private static final String[] HOSTS = {
+        "www.globelifeinsurance.com", "WWW.GlobeLifeInsurance.com", "www.globelifeinsurance.com:443", "careers.globelifeinsurance.com"
+    };
+    
+    private Fixtures() {
+    }
+    
+    static List<Object> links(int count) {
+        Random random = new Random(42);
+        List<Object> links = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int section = random.nextInt(40);
+            links.add(FetchLinksBridge.linkInfo(
+                "Life Insurance \u2013 Section " + section + " item " + i,
+                "https://www.globelifeinsurance.com/section-" + section + "/page-" + i + "?ref=menu",
+                i % 7 == 0 ? "_blank" : "",
+                "/html/body/div[2]/header/nav/div[" + (section + 1) + "]/ul/li[" + (i % 60 + 1) + "]/a"));
+        }
+        return links;
+    }
+    
+    /**
+     * Raw hrefs where roughly half are repeats of earlier ones after normalization
+     */
+    static List<String> hrefs(int count) {
+        Random random = new Random(42);
+        List<String> hrefs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int page = random.nextInt(Math.max(1, count / 2));
+            String host = HOSTS[random.nextInt(HOSTS.length)];
+            switch (random.nextInt(5)) {
+                case 0:
+                    hrefs.add("https://" + host + "/products/page-" + page + "#top");
+                    break;
+                case 1:
+                    hrefs.add("HTTPS://" + host + "/products/page-" + page);
+                    break;
+                case 2:
+                    hrefs.add("  https://" + host + "/products/page-" + page + "?utm_source=menu  ");
+                    break;
+                case 3:
+                    hrefs.add("mailto:agent" + page + "@globelifeinsurance.com");
+                    break;
+                default:
+                    hrefs.add("https://" + host + "/products/page-" + page);
+            }
+        }
+        return hrefs;
+    }
+}
@@ -0,0 +1,74 @@
+package fetchlinks.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing links to a file: Gson tree serialization, pretty and compact, as the
+ * original saveLinksToJson did, against streaming through LinkJsonWriter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkSerializationBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    int links;
+    
+    private List<Object> fixture;
+    private Path file;
+    private final Gson pretty = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson compact = new Gson();
+    
+    @Setup
+    public void setUp() throws IOException {
+        fixture = Fixtures.links(links);
+        file = Files.createTempFile("links-bench", ".json");
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public void gsonPretty() throws IOException {
+        Files.writeString(file, pretty.toJson(fixture), StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public void gsonCompact() throws IOException {
+        Files.writeString(file, compact.toJson(fixture), StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public void streamingCompact() {
+        FetchLinksBridge.writeJson(file, false, fixture);
+    }
+    
+    @Benchmark
+    public void streamingPretty() {
+        FetchLinksBridge.writeJson(file, true, fixture);
+    }
+}
@@ -0,0 +1,95 @@
+package fetchlinks.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+/**
+ * Dynamic locator factories with and without LocatorCache. The uncached methods
+ * repeat what getSpanByText and getFieldValue did before the cache: concatenate
+ * the XPath and allocate a new By per call. Run with -prof gc and compare
+ * gc.alloc.rate.norm (bytes per call) between the cached and uncached methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocatorCacheBenchmark {
+    
+    @Param({"300"})
+    int labels;
+    
+    private String[] names;
+    
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        
+        String pick(String[] names) {
+            String name = names[next];
+            next = next + 1 == names.length ? 0 : next + 1;
+            return name;
+        }
+    }
+    
+    @Setup
+    public void setUp() {
+        names = new String[labels];
+        for (int i = 0; i < labels; i++) {
+            names[i] = "Field Label " + i;
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println();
+        System.out.println(FetchLinksBridge.locatorCacheStats());
+    }
+    
+    @Benchmark
+    public By spanUncached(Cursor cursor) {
+        return By.xpath("//span[text()='" + cursor.pick(names) + "']");
+    }
+    
+    @Benchmark
+    public By spanCached(Cursor cursor) {
+        return FetchLinksBridge.spanByText(cursor.pick(names));
+    }
+    
+    @Benchmark
+    public By fieldValueUncached(Cursor cursor) {
+        return By.xpath("//span[text()='" + cursor.pick(names) + "']/following::span[1]");
+    }
+    
+    @Benchmark
+    public By fieldValueCached(Cursor cursor) {
+        return FetchLinksBridge.fieldValue(cursor.pick(names));
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public By spanUncachedParallel(Cursor cursor) {
+        return spanUncached(cursor);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public By spanCachedParallel(Cursor cursor) {
+        return spanCached(cursor);
+    }
+}
@@ -0,0 +1,99 @@
+package fetchlinks.bench;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * URL normalization and deduplication over a batch of raw hrefs: LinkCrawler.normalize
+ * alone, then normalize plus a heap HashSet, the UrlFrontier's off-heap exact set, and
+ * the frontier's Bloom filter alone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlProcessingBenchmark {
+    
+    @Param({"10000", "100000", "1000000"})
+    int hrefs;
+    
+    private List<String> fixture;
+    private AutoCloseable exactFrontier;
+    private AutoCloseable bloomFrontier;
+    
+    @Setup
+    public void setUp() {
+        fixture = Fixtures.hrefs(hrefs);
+    }
+    
+    // Each invocation deduplicates into empty sets; a whole batch takes milliseconds, so the setup cost is not timed
+    @Setup(Level.Invocation)
+    public void newFrontiers() {
+        exactFrontier = FetchLinksBridge.frontier(hrefs, true);
+        bloomFrontier = FetchLinksBridge.frontier(hrefs, false);
+    }
+    
+    @TearDown(Level.Invocation)
+    public void closeFrontiers() {
+        FetchLinksBridge.closeFrontier(exactFrontier);
+        FetchLinksBridge.closeFrontier(bloomFrontier);
+    }
+    
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (String href : fixture) {
+            blackhole.consume(FetchLinksBridge.normalize(href));
+        }
+    }
+    
+    @Benchmark
+    public int dedupHashSet() {
+        Set<String> seen = new HashSet<>();
+        for (String href : fixture) {
+            String url = FetchLinksBridge.normalize(href);
+            if (url != null) {
+                seen.add(url);
+            }
+        }
+        return seen.size();
+    }
+    
+    @Benchmark
+    public int dedupFrontierExact() {
+        return dedup(exactFrontier);
+    }
+    
+    @Benchmark
+    public int dedupFrontierBloom() {
+        return dedup(bloomFrontier);
+    }
+    
+    private int dedup(Object frontier) {
+        int added = 0;
+        for (String href : fixture) {
+            String url = FetchLinksBridge.normalize(href);
+            if (url != null && FetchLinksBridge.markSeen(frontier, url)) {
+                added++;
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,62 @@
+package fetchlinks.bench;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Link and XPath extraction from page HTML without a browser: HtmlTokenizer plus
+ * StaticLinkExtractor's element stack, which produce the same XPaths as the
+ * in-page script. This times the Java static path only; the in-browser
+ * EXTRACT_LINKS_SCRIPT is timed by XPathScriptBenchmark, which needs Chromium.
+ * By default the input is XPathScriptBenchmark's mega-menu page at the given
+ * node count; pass -p fixtureFile=page.html to use a page saved with
+ * page.content() instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathGenerationBenchmark {
+    
+    private static final String URL = "https://www.globelifeinsurance.com/";
+    
+    @Param({"1000", "10000", "50000"})
+    int nodes;
+    
+    @Param({""})
+    String fixtureFile;
+    
+    private String html;
+    private Object extractor;
+    
+    @Setup
+    public void setUp() throws IOException {
+        html = fixtureFile.isEmpty()
+            ? FetchLinksBridge.megaMenuFixture(nodes)
+            : Files.readString(Path.of(fixtureFile), StandardCharsets.UTF_8);
+        extractor = FetchLinksBridge.staticExtractor();
+    }
+    
+    @Benchmark
+    public List<?> extract() {
+        return FetchLinksBridge.parse(extractor, URL, new StringReader(html));
+    }
+}
@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CompactLinkStoreTest {
+    
+    private static List<FetchLinks.LinkInfo> sample() {
+        List<FetchLinks.LinkInfo> links = new ArrayList<>();
+        // The same nav menu on every page, then a few links of its own
+        for (int page = 0; page < 40; page++) {
+            for (int item = 1; item <= 5; item++) {
+                links.add(new FetchLinks.LinkInfo("Menu " + item, "https://example.com/section/" + item,
+                    "_self", "/html/body/div[1]/nav[1]/ul[1]/li[" + item + "]/a[1]"));
+            }
+            links.add(new FetchLinks.LinkInfo("Article " + page, "https://example.com/articles/" + page + "?ref=list",
+                page % 2 == 0 ? "_blank" : "_self", "//*[@id=\"content\"]/p[" + (page + 1) + "]/a[1]"));
+        }
+        links.add(new FetchLinks.LinkInfo("", "https://example.com/", null, "/html/body/a[1]"));
+        links.add(new FetchLinks.LinkInfo(null, null, null, null));
+        links.add(new FetchLinks.LinkInfo("Caf\u00e9 \u2192 men\u00fc", "https://example.com/caf%C3%A9", "_top", "/html/body"));
+        links.add(new FetchLinks.LinkInfo("odd", "mailto:someone@example.com", "_self", "id(\"x\")/a[2]"));
+        links.add(new FetchLinks.LinkInfo("trailing", "https://example.com/t", "_self", "/html/body/"));
+        return links;
+    }
+    
+    @Test
+    void readsBackEveryLinkAsWritten() {
+        List<FetchLinks.LinkInfo> links = sample();
+        CompactLinkStore store = new CompactLinkStore.Builder().addAll(links).build();
+        
+        assertEquals(links.size(), store.size());
+        List<FetchLinks.LinkInfo> view = store.asList();
+        for (int i = 0; i < links.size(); i++) {
+            FetchLinks.LinkInfo expected = links.get(i);
+            FetchLinks.LinkInfo actual = view.get(i);
+            assertEquals(expected.text, actual.text, "text of " + i);
+            assertEquals(expected.href, actual.href, "href of " + i);
+            assertEquals(expected.target, actual.target, "target of " + i);
+            assertEquals(expected.xpath, actual.xpath, "xpath of " + i);
+        }
+    }
+    
+    @Test
+    void holdsRepeatedHrefsOnce() {
+        CompactLinkStore store = new CompactLinkStore.Builder().addAll(sample()).build();
+        
+        // 5 menu items, 40 articles and 4 other hrefs; the null href is not stored
+        assertEquals(49, store.distinctHrefs());
+    }
+    
+    @Test
+    void givesAReadOnlyView() {
+        List<FetchLinks.LinkInfo> view = new CompactLinkStore.Builder().addAll(sample()).build().asList();
+        
+        assertThrows(UnsupportedOperationException.class, () -> view.add(view.get(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(view.size()));
+        assertEquals(view.get(3).href, view.subList(2, 4).get(1).href);
+    }
+}
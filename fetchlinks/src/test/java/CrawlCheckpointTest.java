@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CrawlCheckpointTest {
+    
+    @TempDir
+    Path directory;
+    
+    private static LinkCrawler.PageResult page(int n) {
+        List<FetchLinks.LinkInfo> links = List.of(
+            new FetchLinks.LinkInfo("next", "https://example.com/" + (n + 1), null, "/html/body/a[1]"),
+            new FetchLinks.LinkInfo("home", "https://example.com/", "_self", "/html/body/a[2]"));
+        return new LinkCrawler.PageResult("https://example.com/" + n, n, links, null, "http");
+    }
+    
+    private List<LinkCrawler.PageResult> replay() throws IOException {
+        List<LinkCrawler.PageResult> pages = new ArrayList<>();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1000)) {
+            assertEquals(checkpoint.replay(pages::add), pages.size());
+        }
+        return pages;
+    }
+    
+    private List<String> urls(List<LinkCrawler.PageResult> pages) {
+        return pages.stream().map(page -> page.url).toList();
+    }
+    
+    @Test
+    void replaysPagesAcrossSealedSegmentsInOrder() throws IOException {
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 2)) {
+            for (int n = 0; n < 5; n++) {
+                checkpoint.append(page(n));
+                checkpoint.sync();
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.filter(file -> file.getFileName().toString().endsWith(".bin.gz")).count());
+        }
+        
+        List<LinkCrawler.PageResult> pages = replay();
+        assertEquals(List.of("https://example.com/0", "https://example.com/1", "https://example.com/2",
+            "https://example.com/3", "https://example.com/4"), urls(pages));
+        LinkCrawler.PageResult third = pages.get(2);
+        assertEquals(2, third.depth);
+        assertEquals("http", third.via);
+        assertEquals(2, third.links.size());
+        assertEquals("https://example.com/3", third.links.get(0).href);
+        assertNull(third.links.get(0).target);
+        assertEquals("_self", third.links.get(1).target);
+    }
+    
+    @Test
+    void discardsRecordTornMidWriteAndAppendsAfterTheLastGoodOne() throws IOException {
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1000)) {
+            for (int n = 0; n < 3; n++) {
+                checkpoint.append(page(n));
+            }
+        }
+        // Cut the last record in half, as a kill during its write would
+        Path wal = directory.resolve("wal.log");
+        long size = Files.size(wal);
+        try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 20);
+        }
+        
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1000)) {
+            assertTrue(Files.size(wal) < size - 20, "torn record should be cut off");
+            List<LinkCrawler.PageResult> pages = new ArrayList<>();
+            checkpoint.replay(pages::add);
+            assertEquals(List.of("https://example.com/0", "https://example.com/1"), urls(pages));
+            checkpoint.append(page(7));
+        }
+        assertEquals(List.of("https://example.com/0", "https://example.com/1", "https://example.com/7"), urls(replay()));
+    }
+    
+    @Test
+    void finishesSealingALogRenamedBeforeAKill() throws IOException {
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, 1000)) {
+            checkpoint.append(page(0));
+            checkpoint.append(page(1));
+        }
+        // The state compact() leaves between renaming the log and compressing it
+        Files.move(directory.resolve("wal.log"), directory.resolve("segment-000000.log"));
+        
+        assertEquals(List.of("https://example.com/0", "https://example.com/1"), urls(replay()));
+        assertTrue(Files.exists(directory.resolve("segment-000000.bin.gz")));
+        assertFalse(Files.exists(directory.resolve("segment-000000.log")));
+    }
+}
@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kills a checkpointed FetchLinks crawl in a forked JVM partway through, then
+ * resumes it from the checkpoint against the same static site.
+ */
+class CrawlResumeTest {
+    
+    // Requests served before the site stops answering, partway through depth 2
+    private static final int STALL_AFTER = 25;
+    
+    @TempDir
+    Path directory;
+    
+    // path -> hrefs on that page: the root, 10 sections and 5 pages per section, 61 in all
+    private final Map<String, List<String>> site = new LinkedHashMap<>();
+    private HttpServer server;
+    private String root;
+    private final Map<String, Integer> hits = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean stalling = true;
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        List<String> sections = new ArrayList<>();
+        for (int s = 0; s < 10; s++) {
+            List<String> pages = new ArrayList<>();
+            for (int p = 0; p < 5; p++) {
+                pages.add("/s" + s + "-" + p);
+                site.put("/s" + s + "-" + p, List.of("/", "/s" + s, "/s" + s + "-" + (p + 1) % 5));
+            }
+            pages.add("/");
+            site.put("/s" + s, pages);
+            sections.add("/s" + s);
+        }
+        site.put("/", sections);
+        
+        // Every request from the killed run past the stall is accepted and held, then dropped uncounted
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            if (stalling && requests.incrementAndGet() > STALL_AFTER) {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            hits.merge(path, 1, Integer::sum);
+            List<String> links = site.get(path);
+            StringBuilder html = new StringBuilder("<html><body>");
+            if (links != null) {
+                for (String href : links) {
+                    html.append("<a href='").append(href).append("'>").append(href).append("</a>");
+                }
+            }
+            byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(links != null ? 200 : 404, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        root = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private List<String> paths(List<LinkCrawler.PageResult> pages) {
+        return pages.stream().map(page -> page.url.substring(root.length())).toList();
+    }
+    
+    @Test
+    void resumesAKilledCrawlWithoutLosingOrRefetchingPages() throws Exception {
+        Path checkpoint = directory.resolve("checkpoint");
+        Path log = directory.resolve("crawl.log");
+        ProcessBuilder builder = new ProcessBuilder(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            "FetchLinks", root, "--crawl", "2", "--checkpoint", checkpoint.toString(),
+            "--stats-interval", "0", "--out", directory.resolve("links.json").toString());
+        builder.environment().put("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD", "1");
+        Process crawl = builder.redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            assertTrue(stalled.await(60, TimeUnit.SECONDS), "the crawl never got far enough to stall");
+            // Give the pages that were answered before the stall time to reach the log
+            Thread.sleep(1_000);
+            assertTrue(crawl.isAlive(), "the crawl finished before it was killed");
+        } finally {
+            crawl.destroyForcibly();
+        }
+        assertTrue(crawl.waitFor(30, TimeUnit.SECONDS));
+        
+        List<LinkCrawler.PageResult> completed = new ArrayList<>();
+        try (CrawlCheckpoint killed = new CrawlCheckpoint(checkpoint, 1000)) {
+            killed.replay(completed::add);
+        }
+        String output = Files.readString(log);
+        assertFalse(completed.isEmpty(), output);
+        assertTrue(completed.size() < site.size(), output);
+        
+        stalling = false;
+        release.countDown();
+        hits.clear();
+        LinkCrawler.CrawlOptions options = new LinkCrawler.CrawlOptions();
+        options.maxDepth = 2;
+        options.statsIntervalMs = 0;
+        options.checkpointDirectory = checkpoint;
+        List<LinkCrawler.PageResult> pages = new ArrayList<>();
+        new LinkCrawler(options).crawl(root, pages::add);
+        
+        // Completed pages come back from the log first, then the rest are fetched once each
+        List<String> resumed = paths(pages);
+        assertEquals(paths(completed), resumed.subList(0, completed.size()));
+        assertEquals(resumed.size(), new HashSet<>(resumed).size(), "a page was reported twice: " + resumed);
+        assertEquals(site.keySet(), new HashSet<>(resumed), "a page was lost");
+        Set<String> pending = new HashSet<>(site.keySet());
+        pending.removeAll(paths(completed));
+        assertEquals(pending, hits.keySet(), "only the pages not completed before the kill are fetched");
+        for (Map.Entry<String, Integer> hit : hits.entrySet()) {
+            assertEquals(1, hit.getValue(), hit.getKey());
+        }
+    }
+}
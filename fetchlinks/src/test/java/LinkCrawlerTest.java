@@ -0,0 +1,139 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Crawls a small static site served by the JDK HTTP server; every page has enough
+ * anchors for the HTTP path, so no browser is launched.
+ */
+class LinkCrawlerTest {
+    
+    // path -> hrefs on that page; anything else is a 404
+    private static final Map<String, List<String>> SITE = Map.of(
+        "/", List.of("/a", "/b", "/c", "http://other.example/x"),
+        "/a", List.of("/a1", "/", "/b#top"),
+        "/b", List.of("/b1", "/a", "/"),
+        "/a1", List.of("/a2", "/a", "/"),
+        "/b1", List.of("/b2", "/b", "/"),
+        "/a2", List.of("/", "/a", "/b"),
+        "/b2", List.of("/", "/a", "/b"));
+    
+    private HttpServer server;
+    private String root;
+    private final Map<String, Integer> hits = new ConcurrentHashMap<>();
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            hits.merge(path, 1, Integer::sum);
+            List<String> links = SITE.get(path);
+            StringBuilder html = new StringBuilder("<html><body>");
+            if (links != null) {
+                for (String href : links) {
+                    html.append("<a href='").append(href).append("'>").append(href).append("</a>");
+                }
+            }
+            byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(links != null ? 200 : 404, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        // A cell with no open row before the next <tr>; browsers shrug this off
+        server.createContext("/table", exchange -> {
+            byte[] body = ("<html><body><td>cell<tr><td><a href='/a'>a</a> <a href='/b'>b</a> <a href='/c'>c</a>"
+                + "</td></tr></body></html>").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        root = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+    
+    private LinkCrawler.CrawlOptions options(int maxDepth) {
+        LinkCrawler.CrawlOptions options = new LinkCrawler.CrawlOptions();
+        options.maxDepth = maxDepth;
+        options.statsIntervalMs = 0;
+        return options;
+    }
+    
+    private List<String> paths(List<LinkCrawler.PageResult> pages) {
+        return pages.stream().map(page -> page.url.substring(root.length())).toList();
+    }
+    
+    @Test
+    void visitsSameHostPagesBreadthFirstOncePerUrl() {
+        List<LinkCrawler.PageResult> pages = new LinkCrawler(options(2)).crawl(root);
+        
+        assertEquals(List.of("/", "/a", "/b", "/c", "/a1", "/b1"), paths(pages));
+        assertEquals(List.of(0, 1, 1, 1, 2, 2), pages.stream().map(page -> page.depth).toList());
+        for (String path : paths(pages)) {
+            assertEquals(1, hits.get(path), path);
+        }
+        assertFalse(hits.containsKey("/a2"), "pages past maxDepth are not fetched");
+        assertFalse(hits.containsKey("/x"));
+    }
+    
+    @Test
+    void recordsLinksAndErrorsPerPage() {
+        List<LinkCrawler.PageResult> pages = new LinkCrawler(options(1)).crawl(root + "/");
+        
+        LinkCrawler.PageResult home = pages.get(0);
+        assertNull(home.error);
+        assertEquals("http", home.via);
+        assertEquals(List.of(root + "/a", root + "/b", root + "/c", "http://other.example/x"),
+            home.links.stream().map(link -> link.href).toList());
+        
+        LinkCrawler.PageResult missing = pages.get(3);
+        assertEquals(root + "/c", missing.url);
+        assertEquals("HTTP 404", missing.error);
+        assertTrue(missing.links.isEmpty());
+    }
+    
+    @Test
+    void stopsQueueingAtMaxPages() {
+        LinkCrawler.CrawlOptions options = options(5);
+        options.maxPages = 4;
+        
+        assertEquals(List.of("/", "/a", "/b", "/c"), paths(new LinkCrawler(options).crawl(root)));
+    }
+    
+    @Test
+    void survivesATableRowWithNoRowOpen() {
+        List<LinkCrawler.PageResult> pages = new LinkCrawler(options(1)).crawl(root + "/table");
+        
+        LinkCrawler.PageResult table = pages.get(0);
+        assertNull(table.error);
+        assertEquals("http", table.via);
+        assertEquals(List.of(root + "/a", root + "/b", root + "/c"), table.links.stream().map(link -> link.href).toList());
+        assertEquals(List.of("/table", "/a", "/b", "/c"), paths(pages));
+    }
+    
+    @Test
+    void normalizesUrlsForDeduplication() {
+        assertEquals("http://example.com/", LinkCrawler.normalize("HTTP://Example.COM:80"));
+        assertEquals("https://example.com/a?q=1", LinkCrawler.normalize("https://example.com:443/a?q=1#part"));
+        assertEquals("http://example.com:8080/", LinkCrawler.normalize("http://example.com:8080/"));
+        assertNull(LinkCrawler.normalize("mailto:someone@example.com"));
+        assertNull(LinkCrawler.normalize("/relative"));
+        assertNull(LinkCrawler.normalize(""));
+    }
+}
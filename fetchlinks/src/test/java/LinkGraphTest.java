@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LinkGraphTest {
+    
+    @TempDir
+    Path directory;
+    
+    // seed -> a -> b; c is crawled but nothing links to it; x is only linked from c
+    private LinkGraph build() throws IOException {
+        try (LinkGraphWriter writer = new LinkGraphWriter(directory)) {
+            writer.addPage("https://example.com/", true, List.of("https://example.com/a"));
+            writer.addPage("https://example.com/a", false, List.of("https://example.com/b", "https://example.com/"));
+            writer.addPage("https://example.com/b", false, List.of());
+            writer.addPage("https://example.com/c", false, List.of("https://example.com/x"));
+        }
+        return new LinkGraph(directory);
+    }
+    
+    @Test
+    void answersClickDepthsFromTheSeed() throws IOException {
+        try (LinkGraph graph = build()) {
+            assertEquals(0, graph.clickDepth("https://example.com/"));
+            assertEquals(1, graph.clickDepth("https://example.com/a"));
+            assertEquals(2, graph.clickDepth("https://example.com/b"));
+            assertEquals(LinkGraph.UNREACHABLE, graph.clickDepth("https://example.com/c"));
+            assertEquals(LinkGraph.UNREACHABLE, graph.clickDepth("https://example.com/x"));
+            assertEquals(LinkGraph.NOT_IN_GRAPH, graph.clickDepth("https://example.com/elsewhere"));
+        }
+    }
+    
+    @Test
+    void sharesOneSearchAcrossQueries() throws IOException {
+        try (LinkGraph graph = build()) {
+            IntBuffer first = graph.clickDepths();
+            IntBuffer second = graph.clickDepths();
+            assertTrue(first.isReadOnly());
+            assertEquals(first, second);
+            assertEquals(graph.nodeCount(), first.capacity());
+        }
+    }
+    
+    @Test
+    void findsOrphansAndEdges() throws IOException {
+        try (LinkGraph graph = build()) {
+            assertEquals(5, graph.nodeCount());
+            assertEquals(4, graph.edgeCount());
+            assertEquals(List.of("https://example.com/c"), graph.orphans().stream().map(graph::url).toList());
+            int a = graph.id("https://example.com/a");
+            assertEquals(2, graph.outDegree(a));
+            assertEquals(1, graph.inDegree(a));
+            assertFalse(graph.isCrawled(graph.id("https://example.com/x")));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LinkValidatorTest {
+    
+    @TempDir
+    Path directory;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private String root;
+    private final AtomicBoolean streamCancelled = new AtomicBoolean();
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, null));
+        server.createContext("/r1", exchange -> respond(exchange, 301, "/r2"));
+        server.createContext("/r2", exchange -> respond(exchange, 302, root + "/ok"));
+        server.createContext("/loop", exchange -> respond(exchange, 302, "/loop"));
+        server.createContext("/missing", exchange -> respond(exchange, 404, null));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, null);
+        });
+        // Rejects HEAD; GET answers 200 and then streams a body for about ten seconds
+        server.createContext("/no-head", exchange -> {
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                respond(exchange, 405, null);
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                byte[] chunk = new byte[16 * 1024];
+                for (int i = 0; i < 200; i++) {
+                    body.write(chunk);
+                    body.flush();
+                    Thread.sleep(50);
+                }
+            } catch (IOException e) {
+                streamCancelled.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        root = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String location) throws IOException {
+        if (location != null) {
+            exchange.getResponseHeaders().add("Location", location);
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+    
+    private LinkValidator.LinkStatus check(String path) throws InterruptedException {
+        LinkValidator.Options options = new LinkValidator.Options();
+        options.timeout = Duration.ofMillis(1_000);
+        options.maxRedirects = 3;
+        return new LinkValidator(options).validateHrefs(List.of(root + path)).get(0);
+    }
+    
+    @Test
+    void recordsEachHopOfARedirectChain() throws InterruptedException {
+        LinkValidator.LinkStatus status = check("/r1");
+        
+        assertTrue(status.ok);
+        assertEquals(200, status.status);
+        assertEquals("HEAD", status.method);
+        assertEquals(List.of("301 " + root + "/r1", "302 " + root + "/r2"), status.redirectChain);
+        assertEquals(root + "/ok", status.finalUrl);
+    }
+    
+    @Test
+    void stopsFollowingARedirectLoop() throws InterruptedException {
+        LinkValidator.LinkStatus status = check("/loop");
+        
+        assertFalse(status.ok);
+        assertEquals("IOException: more than 3 redirects", status.error);
+    }
+    
+    @Test
+    void reportsNotFoundAfterConfirmingWithGet() throws InterruptedException {
+        LinkValidator.LinkStatus status = check("/missing");
+        
+        assertFalse(status.ok);
+        assertEquals(404, status.status);
+        assertEquals("GET", status.method);
+        assertNull(status.error);
+    }
+    
+    @Test
+    void fallsBackToGetWithoutDownloadingTheBody() throws InterruptedException {
+        LinkValidator.LinkStatus status = check("/no-head");
+        
+        assertTrue(status.ok);
+        assertEquals(200, status.status);
+        assertEquals("GET", status.method);
+        assertTrue(status.latencyMs < 5_000, "GET waited for the body: " + status.latencyMs + " ms");
+        // The server sees the cancelled transfer as a failed write
+        for (int i = 0; i < 50 && !streamCancelled.get(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(streamCancelled.get(), "body transfer was not cancelled");
+    }
+    
+    @Test
+    void reportsATimeoutAsAnError() throws InterruptedException {
+        LinkValidator.LinkStatus status = check("/slow");
+        
+        assertFalse(status.ok);
+        assertEquals(0, status.status);
+        assertTrue(status.error.startsWith("HttpTimeoutException"), status.error);
+    }
+    
+    @Test
+    void checksEachDistinctHrefOnce() throws InterruptedException {
+        List<LinkValidator.LinkStatus> statuses = new LinkValidator(new LinkValidator.Options())
+            .validateHrefs(List.of(root + "/ok", root + "/missing", root + "/ok", "mailto:someone@example.com"));
+        
+        assertEquals(3, statuses.size());
+        Map<String, Integer> occurrences = Map.of(root + "/ok", 2, root + "/missing", 1, "mailto:someone@example.com", 1);
+        for (LinkValidator.LinkStatus status : statuses) {
+            assertEquals(occurrences.get(status.href), status.occurrences, status.href);
+        }
+        assertEquals("SKIP", statuses.get(2).method);
+        assertTrue(statuses.get(2).ok);
+    }
+    
+    @Test
+    void streamsOneStatusPerDistinctHrefToTheReport() throws IOException {
+        Path file = directory.resolve("links-health.json");
+        LinkValidator.Session session = new LinkValidator(new LinkValidator.Options()).stream(file);
+        session.offer(root + "/ok", root + "/page1");
+        session.offer(root + "/missing", root + "/page1");
+        session.offer(root + "/ok", root + "/page2");
+        session.close();
+        session.close();
+        
+        assertEquals(2, session.checked());
+        assertEquals(1, session.broken());
+        JsonArray report = JsonParser.parseString(Files.readString(file)).getAsJsonArray();
+        assertEquals(2, report.size());
+        for (int i = 0; i < report.size(); i++) {
+            JsonObject status = report.get(i).getAsJsonObject();
+            assertEquals(root + "/page1", status.get("foundOn").getAsString());
+            assertFalse(status.has("occurrences"));
+            assertEquals(status.get("href").getAsString().endsWith("/ok"), status.get("ok").getAsBoolean());
+        }
+    }
+}
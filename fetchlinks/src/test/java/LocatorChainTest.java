@@ -0,0 +1,168 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+class LocatorChainTest {
+    
+    @TempDir
+    Path directory;
+    
+    private static final By XPATH = By.xpath("/html/body/div[3]/div[1]/button[2]");
+    private static final By CSS = By.cssSelector("button.cancel");
+    private static final By TEXT = By.xpath("//button[text()='Cancel']");
+    
+    /**
+     * A page without a browser: each locator finds one element, nothing, or throws
+     */
+    private static final class FakePage implements SearchContext {
+        final Map<By, RuntimeException> failures = new HashMap<>();
+        final List<By> present = new ArrayList<>();
+        final List<By> lookups = new ArrayList<>();
+        
+        @Override
+        public List<WebElement> findElements(By by) {
+            lookups.add(by);
+            RuntimeException failure = failures.get(by);
+            if (failure != null) {
+                throw failure;
+            }
+            return present.contains(by) ? List.of(element()) : List.of();
+        }
+        
+        @Override
+        public WebElement findElement(By by) {
+            return findElements(by).get(0);
+        }
+        
+        private static WebElement element() {
+            return (WebElement) Proxy.newProxyInstance(WebElement.class.getClassLoader(),
+                new Class<?>[] { WebElement.class }, (proxy, method, args) -> null);
+        }
+    }
+    
+    // Chains and loaded counts are global, so every test uses its own chain names
+    private static LocatorChain chain(String name) {
+        return LocatorChain.of("LocatorChainTest/" + name, XPATH, CSS, TEXT);
+    }
+    
+    @Test
+    void movesTheAlternateThatWorksToTheFront() {
+        LocatorChain chain = chain("reorder");
+        FakePage page = new FakePage();
+        page.present.add(CSS);
+        
+        assertEquals(1, chain.findElements(page).size());
+        assertEquals(List.of(XPATH, CSS), page.lookups);
+        assertEquals(List.of(CSS, TEXT, XPATH), chain.alternates());
+        
+        page.lookups.clear();
+        chain.findElements(page);
+        assertEquals(List.of(CSS), page.lookups, "the failing alternate is no longer tried first");
+    }
+    
+    @Test
+    void recordsNothingWhenNoAlternateMatches() {
+        LocatorChain chain = chain("absent");
+        FakePage page = new FakePage();
+        
+        assertTrue(chain.findElements(page).isEmpty());
+        assertEquals(List.of(XPATH, CSS, TEXT), page.lookups);
+        assertEquals(List.of(XPATH, CSS, TEXT), chain.alternates());
+        assertTrue(chain.statistics().contains("ok=0 miss=0"), chain.statistics());
+    }
+    
+    @Test
+    void halvesCountsOnceAnAlternateHasManyLookups() {
+        LocatorChain chain = chain("decay");
+        FakePage page = new FakePage();
+        page.present.add(XPATH);
+        
+        for (long i = 0; i < LocatorChain.DECAY_AFTER; i++) {
+            chain.findElements(page);
+        }
+        assertTrue(chain.statistics().contains("ok=" + LocatorChain.DECAY_AFTER + " "), chain.statistics());
+        chain.findElements(page);
+        assertTrue(chain.statistics().contains("ok=" + (LocatorChain.DECAY_AFTER + 1) / 2 + " "), chain.statistics());
+    }
+    
+    @Test
+    void skipsARejectedSelectorButNotADeadSession() {
+        LocatorChain chain = chain("errors");
+        FakePage page = new FakePage();
+        page.failures.put(XPATH, new InvalidSelectorException("bad xpath"));
+        page.present.add(CSS);
+        
+        assertEquals(1, chain.findElements(page).size());
+        assertEquals(List.of(CSS, TEXT, XPATH), chain.alternates());
+        
+        page.failures.put(CSS, new NoSuchSessionException("session deleted"));
+        assertThrows(NoSuchSessionException.class, () -> chain.findElements(page));
+    }
+    
+    @Test
+    void savesAndLoadsCounts() throws IOException {
+        LocatorChain trained = chain("saved");
+        FakePage page = new FakePage();
+        page.present.add(TEXT);
+        for (int i = 0; i < 3; i++) {
+            trained.findElements(page);
+        }
+        Path file = directory.resolve("locator.stats");
+        LocatorChain.saveStatistics(file);
+        
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            saved.load(reader);
+        }
+        String prefix = "LocatorChainTest/saved | ";
+        assertEquals("3", saved.getProperty(prefix + TEXT + ".successes"));
+        assertEquals("1", saved.getProperty(prefix + XPATH + ".failures"));
+        assertEquals("1", saved.getProperty(prefix + CSS + ".failures"));
+        
+        // Counts for a chain this run has not created yet apply when it is created
+        Properties next = new Properties();
+        next.setProperty("LocatorChainTest/loaded | " + TEXT + ".successes", "9");
+        next.setProperty("LocatorChainTest/loaded | " + XPATH + ".failures", "9");
+        write(next, file);
+        LocatorChain.loadStatistics(file);
+        assertEquals(List.of(TEXT, CSS, XPATH), chain("loaded").alternates());
+    }
+    
+    @Test
+    void ignoresCorruptCounts() throws IOException {
+        Properties corrupt = new Properties();
+        corrupt.setProperty("LocatorChainTest/corrupt | " + XPATH + ".successes", "lots");
+        corrupt.setProperty("LocatorChainTest/corrupt | " + XPATH + ".failures", "-4");
+        corrupt.setProperty("LocatorChainTest/corrupt | " + CSS + ".successes", "5");
+        Path file = directory.resolve("corrupt.stats");
+        write(corrupt, file);
+        LocatorChain.loadStatistics(file);
+        
+        LocatorChain chain = chain("corrupt");
+        assertEquals(List.of(CSS, XPATH, TEXT), chain.alternates());
+        assertTrue(chain.statistics().contains("ok=5 miss=0"), chain.statistics());
+    }
+    
+    private static void write(Properties properties, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, null);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class PolitenessSchedulerTest {
+    
+    private static PolitenessScheduler.Options options() {
+        PolitenessScheduler.Options options = new PolitenessScheduler.Options();
+        // One global permit: a task holding it would stall every other host
+        options.totalInFlight = 1;
+        options.requestsPerSecond = 100;
+        options.latencyWindow = 2;
+        return options;
+    }
+    
+    @Test
+    void aTaskWaitingOutRetryAfterHoldsNoPermit() throws InterruptedException, ExecutionException, TimeoutException {
+        try (PolitenessScheduler scheduler = new PolitenessScheduler(options())) {
+            long notBefore = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1_500);
+            Future<Long> throttled = scheduler.submit("http://throttled.example/page", notBefore,
+                System::nanoTime, started -> 200);
+            Thread.sleep(100);
+            Future<Long> other = scheduler.submit("http://other.example/page", System::nanoTime, started -> 200);
+            
+            long otherStarted = other.get(1, TimeUnit.SECONDS);
+            assertTrue(otherStarted < notBefore, "the other host waited for the throttled one");
+            assertTrue(throttled.get(5, TimeUnit.SECONDS) >= notBefore, "the task started before its Retry-After");
+        }
+    }
+    
+    // A request with a steady latency, so only a counted wait could look like a spike
+    private static String fetch() throws InterruptedException {
+        Thread.sleep(50);
+        return "page";
+    }
+    
+    @Test
+    void theRetryAfterWaitIsNotCountedAsLatency() throws InterruptedException, ExecutionException {
+        try (PolitenessScheduler scheduler = new PolitenessScheduler(options())) {
+            // The first window sets the baseline, so a wait counted as latency would show up in the second
+            for (int window = 0; window < 2; window++) {
+                long notBefore = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window == 0 ? 0 : 500);
+                Future<?> first = scheduler.submit("http://host.example/a", notBefore, PolitenessSchedulerTest::fetch, page -> 200);
+                Future<?> second = scheduler.submit("http://host.example/b", notBefore, PolitenessSchedulerTest::fetch, page -> 200);
+                first.get();
+                second.get();
+            }
+            // Two windows within the baseline: the initial limit of 2 grows once per window
+            assertEquals(4, scheduler.limit("host.example"));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SalesforceLeadDetailsSnapshotTest {
+    
+    private static Map<String, String> expectedValues() {
+        return new LinkedHashMap<>(SalesforceLeadDetailsSnapshot.expected().values);
+    }
+    
+    @Test
+    void parsesTheExpectedRecord() {
+        SalesforceLeadDetailsSnapshot expected = SalesforceLeadDetailsSnapshot.expected();
+        
+        assertEquals(List.of(), expected.compare(expected));
+        assertEquals(LocalDateTime.of(2025, 12, 6, 20, 1), expected.leadCreatedDate);
+        assertEquals(10, expected.noOfEmployees);
+        assertEquals("23 Lake Helix Dr", expected.address);
+        assertEquals("La Mesa, California 91941", expected.cityStateZip);
+        assertEquals("United States", expected.country);
+    }
+    
+    @Test
+    void matchesAPageThatRendersTheRecord() {
+        Map<String, String> page = expectedValues();
+        page.put("Last Modified By", "Anatswanashe Skeets, 12/6/2025, 8:05 PM");
+        page.put("Address", "  23 Lake Helix Dr\n\nLa Mesa, California 91941\r\nUnited States  ");
+        page.put("No. of Employees", " 10 ");
+        
+        assertTrue(SalesforceLeadDetailsSnapshot.of(page).matches(SalesforceLeadDetailsSnapshot.expected()));
+    }
+    
+    @Test
+    void reportsDifferencesWithTheRawTextOfUnparseableValues() {
+        Map<String, String> page = expectedValues();
+        page.put("Lead Status", "Working");
+        page.put("Lead Created Date", "yesterday");
+        page.put("No. of Employees", "1,250");
+        page.remove("Company");
+        
+        assertEquals(List.of(
+                "company: expected 'NealHeidenreich Pvt Ltd' but was 'null'",
+                "leadCreatedDate: expected '2025-12-06T20:01' but was unparseable 'yesterday'",
+                "leadStatus: expected 'New' but was 'Working'",
+                "noOfEmployees: expected '10' but was '1250'"),
+            SalesforceLeadDetailsSnapshot.of(page).compare(SalesforceLeadDetailsSnapshot.expected()));
+    }
+    
+    @Test
+    void reportsAnExpectedValueThatDoesNotParse() {
+        Map<String, String> values = expectedValues();
+        values.put("No. of Employees", "ten");
+        SalesforceLeadDetailsSnapshot expected = SalesforceLeadDetailsSnapshot.of(values);
+        
+        assertEquals(List.of("noOfEmployees: expected value 'ten' could not be parsed"),
+            SalesforceLeadDetailsSnapshot.expected().compare(expected));
+    }
+    
+    @Test
+    void quotesXPathLiterals() {
+        assertEquals("'Lead Status'", SalesforceLeadDetailsSnapshot.xpathLiteral("Lead Status"));
+        assertEquals("\"Owner's Name\"", SalesforceLeadDetailsSnapshot.xpathLiteral("Owner's Name"));
+        assertEquals("concat('Say \"hi\" to ', \"'\", 'em')", SalesforceLeadDetailsSnapshot.xpathLiteral("Say \"hi\" to 'em"));
+        assertEquals("''", SalesforceLeadDetailsSnapshot.xpathLiteral(""));
+    }
+    
+    @Test
+    void readsEveryDetailsLabel() {
+        assertTrue(SalesforceLeadDetailsSnapshot.LABELS.containsAll(SalesforceLeadDetailsSnapshot.expected().values.keySet()),
+            SalesforceLeadDetailsSnapshot.LABELS.toString());
+    }
+}
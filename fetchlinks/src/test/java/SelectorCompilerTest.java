@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+class SelectorCompilerTest {
+    
+    // Well-formed, with html, head and body written out, so the JDK's XML XPath engine sees the same tree
+    private static final String SNAPSHOT = """
+        <html>
+        <head><title>Lead</title></head>
+        <body>
+        <div class="header">
+        <a href="/home">Home</a>
+        <a href="/leads" data-testid="leads-tab">Leads</a>
+        </div>
+        <div class="record">
+        <ul>
+        <li class="item"><a href="/one">One</a></li>
+        <li><a href="/two">Two</a></li>
+        <li class="item"><a href="/three">Three</a></li>
+        <li class="item"><a href="/four">Four</a></li>
+        </ul>
+        <div class="field">
+        <label>Email <span class="required">*</span></label>
+        <div><span>lead@example.com</span></div>
+        </div>
+        <div class="field">
+        <label>Phone</label>
+        <span>555 0100</span>
+        <span>555 0101</span>
+        </div>
+        <span>Owner<b>!</b></span>
+        <span>Sta<!-- a comment splits this into two text nodes -->tus</span>
+        <span>Status</span>
+        </div>
+        <div>
+        <div>
+        <span>first</span>
+        <span>second</span>
+        </div>
+        <div>
+        <span>third</span>
+        <span>fourth</span>
+        </div>
+        </div>
+        </body>
+        </html>
+        """;
+    
+    private static final List<String> EXPRESSIONS = List.of(
+        // //x[n] is the nth x among its siblings, wherever it is, not the nth x in the document
+        "//div[2]",
+        "//span[1]",
+        "/html/body/div[2]/ul/li[3]/a",
+        "//ul/li[@class='item'][2]/a",
+        "//div[contains(@class,'fie')]//span[1]",
+        // following:: skips the label's own descendants
+        "//label[text()='Email ']/following::span[1]",
+        "//label[text()='Phone']/following::span[2]",
+        "//span[text()='Owner']",
+        "//span[text()='Status']",
+        "//span[normalize-space()='Owner!']",
+        "//a[starts-with(@href,'/t') or @data-testid='leads-tab']",
+        "/html/body/div[3]/div[2]/span[2]");
+    
+    private static SelectorCompiler.Dom dom() throws IOException {
+        return SelectorCompiler.Dom.parse(new StringReader(SNAPSHOT));
+    }
+    
+    // Document-order indexes of the elements the JDK's XPath engine selects
+    private static List<Integer> reference(String expression) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(new ByteArrayInputStream(SNAPSHOT.getBytes(StandardCharsets.UTF_8)));
+        NodeList all = document.getElementsByTagName("*");
+        List<org.w3c.dom.Node> order = new ArrayList<>();
+        for (int i = 0; i < all.getLength(); i++) {
+            order.add(all.item(i));
+        }
+        NodeList matches = (NodeList) XPathFactory.newInstance().newXPath()
+            .evaluate(expression, document, XPathConstants.NODESET);
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < matches.getLength(); i++) {
+            indexes.add(order.indexOf(matches.item(i)));
+        }
+        return indexes;
+    }
+    
+    private static List<Integer> orders(List<SelectorCompiler.Node> nodes) {
+        List<Integer> orders = new ArrayList<>();
+        for (SelectorCompiler.Node node : nodes) {
+            orders.add(node.order);
+        }
+        return orders;
+    }
+    
+    @Test
+    void selectsWhatAnXPathEngineSelects() throws Exception {
+        SelectorCompiler.Dom dom = dom();
+        
+        for (String expression : EXPRESSIONS) {
+            List<Integer> expected = reference(expression);
+            assertFalse(expected.isEmpty(), expression);
+            assertEquals(expected, orders(SelectorCompiler.xpath(dom, expression)), expression);
+        }
+    }
+    
+    @Test
+    void compilesASelectorThatMatchesOnlyItsElement() throws IOException {
+        SelectorCompiler.Dom dom = dom();
+        
+        for (String expression : EXPRESSIONS) {
+            for (SelectorCompiler.Node target : SelectorCompiler.xpath(dom, expression)) {
+                SelectorCompiler.Selector selector = SelectorCompiler.compile(dom, target);
+                assertTrue(selector.matches(target), expression + " -> " + selector);
+                assertEquals(1, SelectorCompiler.count(dom, selector), expression + " -> " + selector);
+            }
+        }
+    }
+    
+    @Test
+    void prefersStableAttributesAndFallsBackToNthOfType() throws IOException {
+        SelectorCompiler.Dom dom = dom();
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("//a[text()='Leads']", "a[data-testid=\"leads-tab\"]");
+        expected.put("/html/body/div[2]/ul/li[3]/a", "div.record > ul > li:nth-of-type(3) > a");
+        expected.put("//label[text()='Email ']/following::span[1]", "div.field > div > span");
+        // No id, class or attribute anywhere above it: a positional path from html
+        expected.put("/html/body/div[3]/div[2]/span[2]",
+            "html > body > div:nth-of-type(3) > div:nth-of-type(2) > span:nth-of-type(2)");
+        
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            List<SelectorCompiler.Node> matches = SelectorCompiler.xpath(dom, entry.getKey());
+            assertEquals(1, matches.size(), entry.getKey());
+            assertEquals(entry.getValue(), SelectorCompiler.compile(dom, matches.get(0)).toString(), entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SitemapSeederTest {
+    
+    @TempDir
+    Path directory;
+    
+    private HttpServer server;
+    private String root;
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = files.get(exchange.getRequestURI().getPath());
+            byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body == null ? 404 : 200, body == null ? -1 : bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        root = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+    
+    private static String urlset(String... locs) {
+        StringBuilder xml = new StringBuilder("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">");
+        for (String loc : locs) {
+            xml.append("<url><loc>").append(loc).append("</loc></url>");
+        }
+        return xml.append("</urlset>").toString();
+    }
+    
+    private static String index(String... locs) {
+        StringBuilder xml = new StringBuilder("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">");
+        for (String loc : locs) {
+            xml.append("<sitemap><loc>").append(loc).append("</loc></sitemap>");
+        }
+        return xml.append("</sitemapindex>").toString();
+    }
+    
+    private List<String> parse(String location) throws InterruptedException {
+        List<String> urls = new ArrayList<>();
+        try (SitemapSeeder seeder = new SitemapSeeder(Duration.ofSeconds(5))) {
+            assertTrue(seeder.parse(location, urls::add));
+        }
+        return urls;
+    }
+    
+    @Test
+    void followsIndexEntriesAndSkipsBadOnes() throws IOException, InterruptedException {
+        Path local = Files.writeString(directory.resolve("local.xml"), urlset("https://example.com/local"));
+        files.put("/good.xml", urlset("https://example.com/a", "https://example.com/b"));
+        files.put("/index.xml", index(
+            root + "/good.xml",
+            "http://bad host/sitemap.xml",
+            local.toUri().toString(),
+            local.toString(),
+            root + "/missing.xml"));
+        
+        assertEquals(List.of("https://example.com/a", "https://example.com/b"), parse(root + "/index.xml"));
+    }
+    
+    @Test
+    void readsALocalSitemapNamedByTheCaller() throws IOException, InterruptedException {
+        Path sitemap = Files.writeString(directory.resolve("sitemap.xml"), urlset("https://example.com/local"));
+        
+        assertEquals(List.of("https://example.com/local"), parse(sitemap.toString()));
+        assertEquals(List.of("https://example.com/local"), parse(sitemap.toUri().toString()));
+    }
+    
+    @Test
+    void discoversSitemapsOnlyOverHttp() throws InterruptedException {
+        files.put("/robots.txt", "User-agent: *\nSitemap: " + root + "/listed.xml\nSitemap: /etc/passwd\n");
+        files.put("/listed.xml", urlset(root + "/page"));
+        
+        List<String> urls = new ArrayList<>();
+        try (SitemapSeeder seeder = new SitemapSeeder(Duration.ofSeconds(5))) {
+            seeder.start(root + "/", List.of(SitemapSeeder.AUTO), urls::add);
+            while (seeder.await(Duration.ofSeconds(5))) {
+                // wait for the seeder thread to finish
+            }
+        }
+        assertEquals(List.of(root + "/page"), urls);
+    }
+}